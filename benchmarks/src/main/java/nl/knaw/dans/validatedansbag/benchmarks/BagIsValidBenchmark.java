@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.core.rules.BagIsValid;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReaderImpl;
+import nl.knaw.dans.validatedansbag.core.service.ChecksumVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule 1.1.1 on synthetic payloads. The payload is read from the page cache after the first iteration, so this measures hashing and bookkeeping rather than
+ * disk throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BagIsValidBenchmark {
+    @Param({ "10:10485760", "1000:102400", "10000:1024" })
+    private String payload;
+
+    private Path tempDir;
+    private ExecutorService executor;
+    private Path bagDir;
+    private BagIsValid rule;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        var parts = payload.split(":");
+        tempDir = Files.createTempDirectory("bag-is-valid-benchmark");
+        bagDir = BenchmarkBags.createBag(tempDir, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), 1, 0);
+        rule = new BagIsValid(new BagItMetadataReaderImpl(new ChecksumVerifier(executor)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        BenchmarkBags.deleteRecursively(tempDir);
+    }
+
+    @Benchmark
+    public RuleResult validate() throws Exception {
+        var result = rule.validate(bagDir);
+
+        if (result.getStatus() != RuleResult.Status.SUCCESS) {
+            throw new IllegalStateException("Generated bag is not valid: " + result.getErrorMessages());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+/**
+ * Writes synthetic bags and metadata files of a configurable size for the benchmarks. The generated bags are valid DANS bags for the VaaS rule set.
+ */
+public final class BenchmarkBags {
+    // Valid according to IdentifierValidatorImpl
+    static final String[] DAIS = { "123456789", "124398545", "943582342" };
+    static final String[] ORCIDS = { "https://orcid.org/0000-0002-1825-0097", "0000-0002-1694-233X" };
+    static final String[] ISNIS = { "0000000114559647", "0000 0001 2281 955X" };
+    static final String POS_LIST = "52.08 4.31 52.09 4.31 52.09 4.32 52.08 4.32 52.08 4.31";
+
+    private BenchmarkBags() {
+    }
+
+    public static Path createBag(Path parent, int payloadFiles, int payloadFileSize, int authors, int polygons) throws IOException {
+        var bagDir = Files.createDirectories(parent.resolve("bag"));
+        var dataDir = Files.createDirectories(bagDir.resolve("data"));
+        var metadataDir = Files.createDirectories(bagDir.resolve("metadata"));
+        var random = new Random(42);
+        var manifest = new StringBuilder();
+        var content = new byte[payloadFileSize];
+
+        for (int i = 0; i < payloadFiles; ++i) {
+            var relative = filePath(i);
+            var file = bagDir.resolve(relative);
+            Files.createDirectories(file.getParent());
+            random.nextBytes(content);
+            Files.write(file, content);
+            manifest.append(sha1(content)).append("  ").append(relative).append('\n');
+        }
+
+        Files.writeString(bagDir.resolve("bagit.txt"), "BagIt-Version: 0.97\nTag-File-Character-Encoding: UTF-8\n");
+        Files.writeString(bagDir.resolve("bag-info.txt"), String.format(
+            "Payload-Oxum: %d.%d\nBagging-Date: 2023-01-01\nCreated: 2023-01-01T00:00:00.000+01:00\n", (long) payloadFiles * payloadFileSize, payloadFiles));
+        Files.writeString(bagDir.resolve("manifest-sha1.txt"), manifest);
+        Files.writeString(metadataDir.resolve("dataset.xml"), datasetXml(authors, polygons));
+        Files.writeString(metadataDir.resolve("files.xml"), filesXml(payloadFiles));
+
+        var tagManifest = new StringBuilder();
+        for (var tagFile : new String[] { "bagit.txt", "bag-info.txt", "manifest-sha1.txt", "metadata/dataset.xml", "metadata/files.xml" }) {
+            tagManifest.append(sha1(Files.readAllBytes(bagDir.resolve(tagFile)))).append("  ").append(tagFile).append('\n');
+        }
+        Files.writeString(bagDir.resolve("tagmanifest-sha1.txt"), tagManifest);
+
+        return bagDir;
+    }
+
+    public static void writeFilesXml(Path file, int entries) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<files xmlns=\"http://easy.dans.knaw.nl/schemas/bag/metadata/files/\" xmlns:dcterms=\"http://purl.org/dc/terms/\">\n");
+
+            for (int i = 0; i < entries; ++i) {
+                writer.write("    <file filepath=\"");
+                writer.write(filePath(i));
+                writer.write("\">\n        <dcterms:format>application/octet-stream</dcterms:format>\n    </file>\n");
+            }
+
+            writer.write("</files>\n");
+        }
+    }
+
+    public static String filesXml(int entries) {
+        var xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<files xmlns=\"http://easy.dans.knaw.nl/schemas/bag/metadata/files/\" xmlns:dcterms=\"http://purl.org/dc/terms/\">\n");
+
+        for (int i = 0; i < entries; ++i) {
+            xml.append("    <file filepath=\"").append(filePath(i)).append("\">\n")
+                .append("        <dcterms:format>application/octet-stream</dcterms:format>\n")
+                .append("    </file>\n");
+        }
+
+        return xml.append("</files>\n").toString();
+    }
+
+    public static String datasetXml(int authors, int polygons) {
+        var xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<ddm:DDM xmlns:ddm=\"http://schemas.dans.knaw.nl/dataset/ddm-v2/\"\n"
+            + "         xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+            + "         xmlns:dc=\"http://purl.org/dc/elements/1.1/\"\n"
+            + "         xmlns:dct=\"http://purl.org/dc/terms/\"\n"
+            + "         xmlns:gml=\"http://www.opengis.net/gml\"\n"
+            + "         xmlns:dcx-gml=\"http://easy.dans.knaw.nl/schemas/dcx/gml/\"\n"
+            + "         xmlns:dcx-dai=\"http://easy.dans.knaw.nl/schemas/dcx/dai/\">\n"
+            + "    <ddm:profile>\n"
+            + "        <dc:title xml:lang=\"en\">Benchmark dataset</dc:title>\n"
+            + "        <dc:description xml:lang=\"en\">Generated for benchmarking</dc:description>\n"
+            + "        <dcx-dai:creatorDetails>\n");
+
+        for (int i = 0; i < authors; ++i) {
+            xml.append("            <dcx-dai:author>\n")
+                .append("                <dcx-dai:initials>A.</dcx-dai:initials>\n")
+                .append("                <dcx-dai:surname>Author ").append(i).append("</dcx-dai:surname>\n")
+                .append("                <dcx-dai:DAI>").append(DAIS[i % DAIS.length]).append("</dcx-dai:DAI>\n")
+                .append("                <dcx-dai:ORCID>").append(ORCIDS[i % ORCIDS.length]).append("</dcx-dai:ORCID>\n")
+                .append("                <dcx-dai:ISNI>").append(ISNIS[i % ISNIS.length]).append("</dcx-dai:ISNI>\n")
+                .append("                <dcx-dai:role>DataCurator</dcx-dai:role>\n")
+                .append("            </dcx-dai:author>\n");
+        }
+
+        xml.append("        </dcx-dai:creatorDetails>\n"
+            + "        <ddm:created>2012-12</ddm:created>\n"
+            + "        <ddm:available>2013-05</ddm:available>\n"
+            + "        <ddm:audience>D20000</ddm:audience>\n"
+            + "        <ddm:accessRights>OPEN_ACCESS</ddm:accessRights>\n"
+            + "    </ddm:profile>\n"
+            + "    <ddm:dcmiMetadata>\n"
+            + "        <dct:license xsi:type=\"dct:URI\">http://creativecommons.org/licenses/by-sa/4.0</dct:license>\n"
+            + "        <dct:rightsHolder>Mr. Rights</dct:rightsHolder>\n");
+
+        for (int i = 0; i < polygons; ++i) {
+            xml.append("        <dcx-gml:spatial>\n")
+                .append("            <gml:Polygon srsName=\"http://www.opengis.net/def/crs/EPSG/0/4326\">\n")
+                .append("                <gml:exterior><gml:LinearRing><gml:posList>").append(POS_LIST).append("</gml:posList></gml:LinearRing></gml:exterior>\n")
+                .append("            </gml:Polygon>\n")
+                .append("        </dcx-gml:spatial>\n");
+        }
+
+        return xml.append("    </ddm:dcmiMetadata>\n</ddm:DDM>\n").toString();
+    }
+
+    public static void deleteRecursively(Path path) {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String filePath(int i) {
+        // spread the files over a few directories, like a real deposit
+        return String.format("data/dir-%03d/file-%07d.bin", i % 100, i);
+    }
+
+    private static String sha1(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(content));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.validatedansbag.core.service.FilesXmlServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilesXmlServiceBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    private int entries;
+
+    private Path bagDir;
+    private FilesXmlServiceImpl filesXmlService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        bagDir = Files.createTempDirectory("files-xml-benchmark");
+        BenchmarkBags.writeFilesXml(bagDir.resolve("metadata/files.xml"), entries);
+        filesXmlService = new FilesXmlServiceImpl(new XmlReaderImpl());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkBags.deleteRecursively(bagDir);
+    }
+
+    @Benchmark
+    public long readFilepaths() throws Exception {
+        return filesXmlService.readFilepaths(bagDir).count();
+    }
+}
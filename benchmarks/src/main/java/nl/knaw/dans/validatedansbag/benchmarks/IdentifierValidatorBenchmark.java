@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifierValidatorBenchmark {
+    private final IdentifierValidatorImpl identifierValidator = new IdentifierValidatorImpl();
+
+    @Benchmark
+    public void validateDai(Blackhole blackhole) {
+        for (var dai : BenchmarkBags.DAIS) {
+            blackhole.consume(identifierValidator.validateDai(dai));
+        }
+    }
+
+    @Benchmark
+    public void validateOrcid(Blackhole blackhole) {
+        for (var orcid : BenchmarkBags.ORCIDS) {
+            blackhole.consume(identifierValidator.validateOrcid(orcid));
+        }
+    }
+
+    @Benchmark
+    public void validateIsni(Blackhole blackhole) {
+        for (var isni : BenchmarkBags.ISNIS) {
+            blackhole.consume(identifierValidator.validateIsni(isni));
+        }
+    }
+}
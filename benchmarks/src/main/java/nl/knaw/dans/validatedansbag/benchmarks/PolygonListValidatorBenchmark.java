@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidator.PolygonValidationResult;
+import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonListValidatorBenchmark {
+    @Param({ "5", "1000", "100000" })
+    private int points;
+
+    private final PolygonListValidatorImpl polygonListValidator = new PolygonListValidatorImpl();
+    private String validPosList;
+    private String oddPosList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var posList = new StringBuilder();
+
+        for (int i = 0; i < points - 1; ++i) {
+            var angle = 2 * Math.PI * i / (points - 1);
+            posList.append(52.0 + Math.sin(angle)).append(' ').append(4.0 + Math.cos(angle)).append(' ');
+        }
+
+        // close the ring
+        posList.append(52.0).append(' ').append(4.0 + 1.0);
+        validPosList = posList.toString();
+        oddPosList = validPosList + " 1.0";
+    }
+
+    @Benchmark
+    public PolygonValidationResult validPolygon() {
+        return polygonListValidator.validatePolygonList(validPosList);
+    }
+
+    @Benchmark
+    public PolygonValidationResult invalidPolygon() {
+        return polygonListValidator.validatePolygonList(oddPosList);
+    }
+}
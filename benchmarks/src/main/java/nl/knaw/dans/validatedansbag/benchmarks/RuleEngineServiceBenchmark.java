@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.lib.util.ruleengine.RuleEngineImpl;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.rules.RuleSets;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReaderImpl;
+import nl.knaw.dans.validatedansbag.core.service.ChecksumVerifier;
+import nl.knaw.dans.validatedansbag.core.service.FileServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.FilesXmlServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.RuleEngineServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
+import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.LicenseValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.OrganizationIdentifierPrefixValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end validation of generated bags with the VaaS rule set, so that no Data Station is needed. Schema validation is stubbed out, because the schemas
+ * would otherwise be downloaded from the internet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuleEngineServiceBenchmark {
+    @Param({ "10", "1000", "10000" })
+    private int payloadFiles;
+
+    @Param({ "1024" })
+    private int payloadFileSize;
+
+    @Param({ "10" })
+    private int authors;
+
+    private Path tempDir;
+    private ExecutorService executor;
+    private Path bagDir;
+    private RuleEngineServiceImpl ruleEngineService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        tempDir = Files.createTempDirectory("rule-engine-benchmark");
+        bagDir = BenchmarkBags.createBag(tempDir, payloadFiles, payloadFileSize, authors, authors);
+
+        var fileService = new FileServiceImpl(tempDir);
+        var xmlReader = new XmlReaderImpl() {
+            @Override
+            public List<SAXParseException> validateXmlFile(Path path, String schema) throws ParserConfigurationException, IOException, SAXException {
+                // still parses the file once, like the validating parse would
+                readXmlFile(path);
+                return List.of();
+            }
+        };
+
+        var ruleSets = new RuleSets(null,
+            fileService,
+            new FilesXmlServiceImpl(xmlReader),
+            new OriginalFilepathsServiceImpl(fileService),
+            xmlReader,
+            new BagItMetadataReaderImpl(new ChecksumVerifier(executor)),
+            new LicenseValidatorImpl(null),
+            new IdentifierValidatorImpl(),
+            new PolygonListValidatorImpl(),
+            new OrganizationIdentifierPrefixValidatorImpl(List.of()),
+            swordToken -> Optional.empty(),
+            Map.of(),
+            Map.of());
+
+        ruleEngineService = new RuleEngineServiceImpl(new RuleEngineImpl(), fileService, ruleSets.getVaasSet());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        BenchmarkBags.deleteRecursively(tempDir);
+    }
+
+    @Benchmark
+    public ValidateOkDto validateBag() throws Exception {
+        return ruleEngineService.validateBag(bagDir, bagDir.toString());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.benchmarks;
+
+import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlReaderBenchmark {
+    @Param({ "10", "1000" })
+    private int authors;
+
+    private Path tempDir;
+    private Path datasetXml;
+    private XmlReaderImpl xmlReader;
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tempDir = Files.createTempDirectory("xml-reader-benchmark");
+        datasetXml = Files.writeString(tempDir.resolve("dataset.xml"), BenchmarkBags.datasetXml(authors, authors));
+        xmlReader = new XmlReaderImpl();
+        document = xmlReader.readXmlFile(datasetXml);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkBags.deleteRecursively(tempDir);
+    }
+
+    @Benchmark
+    public Document parse() throws Exception {
+        return xmlReader.readXmlFile(datasetXml);
+    }
+
+    @Benchmark
+    public long xpathDais() throws Exception {
+        return xmlReader.xpathToStreamOfStrings(document, "//dcx-dai:DAI").count();
+    }
+
+    @Benchmark
+    public long xpathPosLists() throws Exception {
+        return xmlReader.xpathToStream(document, "//gml:Polygon//gml:posList").count();
+    }
+}
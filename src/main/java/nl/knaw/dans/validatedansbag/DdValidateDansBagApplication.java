@@ -20,23 +20,35 @@ import io.dropwizard.core.Application;
 import io.dropwizard.core.setup.Bootstrap;
 import io.dropwizard.core.setup.Environment;
 import io.dropwizard.forms.MultiPartBundle;
+import io.dropwizard.lifecycle.ExecutorServiceManager;
+import io.dropwizard.util.Duration;
 import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ClientProxyBuilder;
 import nl.knaw.dans.lib.util.DataverseHealthCheck;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.RuleEngineImpl;
+import nl.knaw.dans.validatedansbag.admin.CancelValidationTask;
+import nl.knaw.dans.validatedansbag.admin.RunningValidationsServlet;
 import nl.knaw.dans.validatedansbag.client.VaultCatalogClientImpl;
 import nl.knaw.dans.validatedansbag.config.DdValidateDansBagConfiguration;
 import nl.knaw.dans.validatedansbag.config.ValidTermsConfig;
 import nl.knaw.dans.validatedansbag.config.ValidTermsFileConfig;
+import nl.knaw.dans.validatedansbag.core.engine.ContentCachedRule;
+import nl.knaw.dans.validatedansbag.core.engine.RuleResultCache;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationRegistry;
+import nl.knaw.dans.validatedansbag.core.engine.VirtualThreads;
 import nl.knaw.dans.validatedansbag.core.rules.RuleSets;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReaderImpl;
+import nl.knaw.dans.validatedansbag.core.service.ChecksumVerifier;
 import nl.knaw.dans.validatedansbag.core.service.DataverseService;
 import nl.knaw.dans.validatedansbag.core.service.DataverseServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.DiskReadScheduler;
 import nl.knaw.dans.validatedansbag.core.service.FileServiceImpl;
 import nl.knaw.dans.validatedansbag.core.service.FilesXmlServiceImpl;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCacheImpl;
 import nl.knaw.dans.validatedansbag.core.service.RuleEngineServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.ScratchSpaceImpl;
 import nl.knaw.dans.validatedansbag.core.service.VaultCatalogClient;
 import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
 import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidatorImpl;
@@ -44,6 +56,7 @@ import nl.knaw.dans.validatedansbag.core.validator.LicenseValidatorImpl;
 import nl.knaw.dans.validatedansbag.core.validator.OrganizationIdentifierPrefixValidatorImpl;
 import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidatorImpl;
 import nl.knaw.dans.validatedansbag.resources.IllegalArgumentExceptionMapper;
+import nl.knaw.dans.validatedansbag.resources.ValidateBatchResource;
 import nl.knaw.dans.validatedansbag.resources.ValidateLocalDirApiResource;
 import nl.knaw.dans.validatedansbag.resources.ValidateZipApiResource;
 import nl.knaw.dans.vaultcatalog.client.invoker.ApiClient;
@@ -56,6 +69,7 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -88,12 +102,25 @@ public class DdValidateDansBagApplication extends Application<DdValidateDansBagC
         var vaultCatalogClient = getVaultCatalogClient(configuration);
 
         var fileService = new FileServiceImpl(configuration.getValidation().getBaseFolder());
-        var bagItMetadataReader = new BagItMetadataReaderImpl();
-        var xmlReader = new XmlReaderImpl();
+        var scratchSpaceConfig = configuration.getValidation().getScratchSpace();
+        var extractionExecutor = environment.lifecycle().executorService("zip-extraction-%d")
+            .minThreads(scratchSpaceConfig.getExtractionThreads())
+            .maxThreads(scratchSpaceConfig.getExtractionThreads())
+            .build();
+        var scratchSpace = new ScratchSpaceImpl(configuration.getValidation().getBaseFolder().resolve("temp"), fileService, scratchSpaceConfig, extractionExecutor);
+        environment.lifecycle().manage(scratchSpace);
+        var checksumExecutor = environment.lifecycle().executorService("checksum-%d")
+            .minThreads(configuration.getValidation().getChecksumThreads())
+            .maxThreads(configuration.getValidation().getChecksumThreads())
+            .build();
+        var diskReadsConfig = configuration.getValidation().getDiskReads();
+        var diskReadScheduler = new DiskReadScheduler(diskReadsConfig.getMaxReadersPerFileStore(), diskReadsConfig.getMaxBytesPerSecondPerFileStore().toBytes());
+        var bagItMetadataReader = new BagItMetadataReaderImpl(new ChecksumVerifier(checksumExecutor, diskReadScheduler));
+        var xmlReader = new XmlReaderImpl(Runtime.getRuntime().availableProcessors(), configuration.getValidation().getDeferredNodeExpansionThreshold().toBytes(),
+            configuration.getValidation().getXmlSchemas().buildMap());
         var polygonListValidator = new PolygonListValidatorImpl();
         var originalFilepathsService = new OriginalFilepathsServiceImpl(fileService);
         var filesXmlService = new FilesXmlServiceImpl(xmlReader);
-        var xmlSchemaValidator = new XmlSchemaValidator(configuration.getValidation().getXmlSchemas().buildMap());
 
         var licenseValidator = new LicenseValidatorImpl(dataverseService);
         var identifierValidator = new IdentifierValidatorImpl();
@@ -109,7 +136,6 @@ public class DdValidateDansBagApplication extends Application<DdValidateDansBagC
             originalFilepathsService,
             xmlReader,
             bagItMetadataReader,
-            xmlSchemaValidator,
             licenseValidator,
             identifierValidator,
             polygonListValidator,
@@ -120,12 +146,61 @@ public class DdValidateDansBagApplication extends Application<DdValidateDansBagC
         );
 
         log.info("Using rule set: {}", configuration.getDataverse() != null ? "DATA STATION" : "VAAS");
-        var ruleEngineService = new RuleEngineServiceImpl(ruleEngine, fileService,
-            configuration.getDataverse() != null ? ruleSets.getDataStationSet() : ruleSets.getVaasSet());
+        var rules = configuration.getDataverse() != null ? ruleSets.getDataStationSet() : ruleSets.getVaasSet();
+
+        if (configuration.getValidation().getRuleResultCacheSize() > 0) {
+            var configFingerprint = RuleResultCache.fingerprint(configuration.getValidation().getXmlSchemas().buildMap(), schemeUriToValidTerms, schemeUriToValidCodes);
+            rules = ContentCachedRule.wrap(rules, RuleSets.getMetadataOnlyRuleInputs(),
+                new RuleResultCache(configuration.getValidation().getRuleResultCacheSize(), configFingerprint));
+        }
+
+        var validationRegistry = new ValidationRegistry();
+        var ruleEngineService = new RuleEngineServiceImpl(ruleEngine, fileService, rules, validationRegistry);
+        environment.admin().addServlet("validations", new RunningValidationsServlet(validationRegistry, environment.getObjectMapper())).addMapping("/validations");
+        environment.admin().addTask(new CancelValidationTask(validationRegistry));
 
         environment.jersey().register(new IllegalArgumentExceptionMapper());
-        environment.jersey().register(new ValidateZipApiResource(ruleEngineService, fileService));
-        environment.jersey().register(new ValidateLocalDirApiResource(ruleEngineService));
+        environment.jersey().register(new ValidateZipApiResource(ruleEngineService, fileService, scratchSpace, environment.getObjectMapper()));
+        var revalidationCache = createRevalidationCache(configuration, environment);
+        environment.jersey().register(new ValidateLocalDirApiResource(ruleEngineService, revalidationCache, environment.getObjectMapper()));
+
+        var batchConfig = configuration.getValidation().getBatch();
+        var batchExecutor = createBatchExecutor(configuration, environment);
+        environment.jersey().register(new ValidateBatchResource(ruleEngineService, revalidationCache, batchExecutor,
+            batchConfig.getMaxBagsInProgressPerRequest(), environment.getObjectMapper()));
+    }
+
+    private ExecutorService createBatchExecutor(DdValidateDansBagConfiguration configuration, Environment environment) {
+        var threads = configuration.getValidation().getBatch().getThreads();
+
+        if (configuration.getValidation().isVirtualThreads()) {
+            if (VirtualThreads.isSupported()) {
+                log.info("Running batch validations on virtual threads, at most {} at the same time", threads);
+                var executor = VirtualThreads.newThreadPerTaskExecutor("batch-validation-", threads);
+                environment.lifecycle().manage(new ExecutorServiceManager(executor, Duration.seconds(5), "batch-validation"));
+                return executor;
+            }
+
+            log.warn("Virtual threads are not supported by Java {}, running batch validations on platform threads", Runtime.version());
+        }
+
+        return environment.lifecycle().executorService("batch-validation-%d")
+            .minThreads(threads)
+            .maxThreads(threads)
+            .build();
+    }
+
+    private RevalidationCache createRevalidationCache(DdValidateDansBagConfiguration configuration, Environment environment) {
+        var cacheConfig = configuration.getValidation().getRevalidationCache();
+
+        if (!cacheConfig.isEnabled()) {
+            return RevalidationCache.DISABLED;
+        }
+
+        var revalidationCache = new RevalidationCacheImpl(configuration.getValidation().getBaseFolder().resolve("revalidation-cache"), cacheConfig,
+            environment.getObjectMapper());
+        environment.lifecycle().manage(revalidationCache);
+        return revalidationCache;
     }
 
     private VaultCatalogClient getVaultCatalogClient(DdValidateDansBagConfiguration configuration) {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.admin;
+
+import io.dropwizard.servlets.tasks.Task;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationRegistry;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cancels running validations: {@code POST /tasks/cancel-validation?id=<id>} on the admin port. The validation stops at the next rule, file or block of data
+ * it reads.
+ */
+@Slf4j
+public class CancelValidationTask extends Task {
+    private final ValidationRegistry validationRegistry;
+
+    public CancelValidationTask(ValidationRegistry validationRegistry) {
+        super("cancel-validation");
+        this.validationRegistry = validationRegistry;
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        var ids = parameters.getOrDefault("id", List.of());
+
+        if (ids.isEmpty()) {
+            output.println("Parameter 'id' is required");
+            return;
+        }
+
+        for (var id : ids) {
+            if (validationRegistry.cancel(id)) {
+                log.info("Cancelling validation {}", id);
+                output.println("Cancelled " + id);
+            }
+            else {
+                output.println("No running validation " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.admin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationRegistry;
+import nl.knaw.dans.validatedansbag.core.report.RunningValidationDto;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+/**
+ * Lists the running validations on the admin port.
+ */
+@RequiredArgsConstructor
+public class RunningValidationsServlet extends HttpServlet {
+    private final transient ValidationRegistry validationRegistry;
+    private final transient ObjectMapper objectMapper;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var running = validationRegistry.getRunning().stream()
+            .map(RunningValidationDto::of)
+            .collect(Collectors.toList());
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resp.getOutputStream(), running);
+    }
+}
@@ -17,6 +17,7 @@ package nl.knaw.dans.validatedansbag.client;
 
 
 import lombok.AllArgsConstructor;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import nl.knaw.dans.vaultcatalog.client.api.DatasetDto;
 import nl.knaw.dans.vaultcatalog.client.resources.DefaultApi;
 
@@ -29,6 +30,8 @@ public class VaultCatalogClientImpl implements nl.knaw.dans.validatedansbag.core
 
     @Override
     public Optional<DatasetDto> findDatasetBySwordToken(String swordToken) throws IOException {
+        ValidationContext.current().countRemoteCall();
+
         try {
             return Optional.of(catalogApi.getDatasetBySwordToken(swordToken));
         }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.config;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+
+@Data
+public class BatchConfig {
+    // bags validated at the same time, shared by all batch requests, also on virtual threads
+    @Min(1)
+    private int threads = 4;
+
+    // bags of a single batch request validated at the same time, so that one large batch does not starve the others
+    @Min(1)
+    private int maxBagsInProgressPerRequest = 2;
+}
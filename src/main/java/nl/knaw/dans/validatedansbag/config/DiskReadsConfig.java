@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.config;
+
+import io.dropwizard.util.DataSize;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+public class DiskReadsConfig {
+    // files on the same file system that are read at the same time to verify their checksums, shared by all validations; 0 for no limit other than the number
+    // of checksum threads
+    @Min(0)
+    private int maxReadersPerFileStore = 0;
+
+    // bytes read per second from one file system to verify checksums; 0 for no limit
+    @NotNull
+    private DataSize maxBytesPerSecondPerFileStore = DataSize.bytes(0);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.config;
+
+import io.dropwizard.util.Duration;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+public class RevalidationCacheConfig {
+    // off by default: with the cache enabled, unchanged files are not rehashed, so their checksums are only as trustworthy as the fingerprint
+    private boolean enabled = false;
+
+    // entries of bags that were not validated for this long are removed at startup and every sweepInterval
+    @NotNull
+    private Duration maxAge = Duration.days(30);
+
+    // number of bags of which the digests are kept; the least recently validated ones are removed first
+    @Min(1)
+    private int maxEntries = 10000;
+
+    @NotNull
+    private Duration sweepInterval = Duration.hours(1);
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.config;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+public class ScratchSpaceConfig {
+    // the total size of all ZIP files that are extracted at the same time
+    @NotNull
+    private DataSize maxSize = DataSize.gibibytes(50);
+
+    @Min(1)
+    private int maxConcurrentExtractions = 4;
+
+    // the entries of a single ZIP file are inflated in parallel by this many threads, shared by all extractions
+    @Min(1)
+    private int extractionThreads = 4;
+
+    // how long a request waits for one of the extractions to finish before it is rejected
+    @NotNull
+    private Duration acquireTimeout = Duration.seconds(30);
+
+    @NotNull
+    private Duration orphanMaxAge = Duration.hours(6);
+
+    @NotNull
+    private Duration sweepInterval = Duration.minutes(15);
+}
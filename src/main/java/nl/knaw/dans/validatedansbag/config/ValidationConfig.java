@@ -16,10 +16,12 @@
 package nl.knaw.dans.validatedansbag.config;
 
 import io.dropwizard.client.HttpClientConfiguration;
+import io.dropwizard.util.DataSize;
 import lombok.Getter;
 import lombok.Setter;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.nio.file.Path;
 import java.util.List;
@@ -45,5 +47,37 @@ public class ValidationConfig {
 
     @Valid
     private HttpClientConfiguration httpClient = new HttpClientConfiguration();
+
+    // number of files whose checksums are verified at the same time, shared by all validations
+    @Min(1)
+    private int checksumThreads = 4;
+
+    @Valid
+    @NotNull
+    private DiskReadsConfig diskReads = new DiskReadsConfig();
+
+    // run batch validations on virtual threads (Java 21 or later), so that validations waiting for Dataverse, the Vault Catalog or the file system do not
+    // hold on to platform threads; requests to the other endpoints are still handled on the server's thread pool
+    private boolean virtualThreads = false;
+
+    // number of results of metadata-only rules that are cached by file contents; 0 disables the cache
+    @Min(0)
+    private int ruleResultCacheSize = 10000;
+
+    // XML files of this size or larger are parsed into a DOM whose nodes are only created when a rule first visits them
+    @NotNull
+    private DataSize deferredNodeExpansionThreshold = DataSize.mebibytes(1);
+
+    @Valid
+    @NotNull
+    private ScratchSpaceConfig scratchSpace = new ScratchSpaceConfig();
+
+    @Valid
+    @NotNull
+    private BatchConfig batch = new BatchConfig();
+
+    @Valid
+    @NotNull
+    private RevalidationCacheConfig revalidationCache = new RevalidationCacheConfig();
 }
 
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when files listed in the manifests of a bag are missing, or payload files are not listed in its payload manifests.
+ */
+@Getter
+public class BagNotCompleteException extends Exception {
+    private final List<String> problems;
+
+    public BagNotCompleteException(List<String> problems) {
+        super(String.join("; ", problems));
+        this.problems = problems;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import lombok.AllArgsConstructor;
+import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
+import nl.knaw.dans.lib.util.ruleengine.NumberedRule;
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Decorates a rule that only depends on the contents of a single file in the bag, so that its result is taken from a {@link RuleResultCache} if the same
+ * file contents were validated before. The file is hashed once per validation, however many rules depend on it.
+ */
+@AllArgsConstructor
+public class ContentCachedRule implements BagValidatorRule {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String number;
+    private final Path input;
+    private final BagValidatorRule rule;
+    private final RuleResultCache cache;
+
+    /**
+     * Wraps the rules whose numbers are keys of {@code inputs}; the other rules are returned as they are.
+     *
+     * @param inputs rule number to the path, relative to the bag, of the only file the rule depends on
+     */
+    public static List<NumberedRule> wrap(List<NumberedRule> rules, Map<String, Path> inputs, RuleResultCache cache) {
+        return rules.stream()
+            .map(r -> inputs.containsKey(r.getNumber())
+                ? new NumberedRule(r.getNumber(), new ContentCachedRule(r.getNumber(), inputs.get(r.getNumber()), r.getRule(), cache), r.getDependencies())
+                : r)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public RuleResult validate(Path path) throws Exception {
+        var file = path.resolve(input);
+
+        if (!Files.isRegularFile(file)) {
+            return rule.validate(path);
+        }
+
+        var contentHash = contentHash(file);
+        var cached = cache.get(number, contentHash);
+
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        var result = rule.validate(path);
+
+        if (result.getStatus() != RuleResult.Status.SKIP_DEPENDENCIES) {
+            cache.put(number, contentHash, result);
+        }
+
+        return result;
+    }
+
+    private static String contentHash(Path file) throws IOException {
+        var context = ValidationContext.current();
+
+        try {
+            return context.computeIfAbsent("content-hash:" + file.toAbsolutePath().normalize(), k -> {
+                try {
+                    return sha256(file, context);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String sha256(Path file, ValidationContext context) throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        var bytes = 0L;
+
+        try (var input = Files.newInputStream(file)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+
+            while ((bytesRead = input.read(buffer)) != -1) {
+                context.checkCancelled();
+                digest.update(buffer, 0, bytesRead);
+                bytes += bytesRead;
+            }
+        }
+
+        context.addBytesRead(bytes);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Digests of files that were already computed before the validation started, e.g. while extracting a ZIP file or in an earlier validation of the same bag.
+ * Algorithms are identified by their BagIt name ("md5", "sha1", "sha256", "sha512").
+ */
+public class FileDigests {
+    private final Map<Path, Map<String, String>> digests = new ConcurrentHashMap<>();
+
+    public void put(Path file, String algorithm, String digest) {
+        digests.computeIfAbsent(key(file), k -> new ConcurrentHashMap<>()).put(algorithm.toLowerCase(Locale.ROOT), digest);
+    }
+
+    public Optional<String> get(Path file, String algorithm) {
+        return Optional.ofNullable(digests.get(key(file)))
+            .map(m -> m.get(algorithm.toLowerCase(Locale.ROOT)));
+    }
+
+    public Map<String, String> getAll(Path file) {
+        return Map.copyOf(digests.getOrDefault(key(file), Map.of()));
+    }
+
+    public int size() {
+        return digests.size();
+    }
+
+    private static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
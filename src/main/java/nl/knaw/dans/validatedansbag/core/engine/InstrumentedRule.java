@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import lombok.AllArgsConstructor;
+import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
+import nl.knaw.dans.lib.util.ruleengine.NumberedRule;
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Decorates a rule so that the resources it consumes are recorded in the current {@link ValidationContext}.
+ */
+@AllArgsConstructor
+public class InstrumentedRule implements BagValidatorRule {
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final String number;
+    private final BagValidatorRule rule;
+
+    public static List<NumberedRule> instrument(List<NumberedRule> rules) {
+        return rules.stream()
+            .map(r -> new NumberedRule(r.getNumber(), new InstrumentedRule(r.getNumber(), r.getRule()), r.getDependencies()))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public RuleResult validate(Path path) throws Exception {
+        var context = ValidationContext.current();
+        context.checkCancelled();
+        context.setCurrentRule(number);
+        var bytesRead = context.getBytesRead();
+        var filesHashed = context.getFilesHashed();
+        var remoteCalls = context.getRemoteCalls();
+        var cpuStart = currentThreadCpuTime();
+        var wallStart = System.nanoTime();
+
+        context.getListener().ruleStarted(number);
+
+        try {
+            var result = rule.validate(path);
+            context.getListener().ruleCompleted(number, result);
+            return result;
+        }
+        finally {
+            var wallTime = System.nanoTime() - wallStart;
+            var cpuEnd = currentThreadCpuTime();
+
+            context.addRuleTiming(new RuleTiming(
+                number,
+                wallTime,
+                cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart,
+                context.getBytesRead() - bytesRead,
+                context.getFilesHashed() - filesHashed,
+                context.getRemoteCalls() - remoteCalls));
+        }
+    }
+
+    private static long currentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, least-recently-used cache of the results of rules that only depend on the contents of one file in the bag and on the configuration. Results are
+ * keyed by the rule number, the SHA-256 of the file and a fingerprint of the configuration the rules were built with.
+ */
+public class RuleResultCache {
+    private final int maxEntries;
+    private final String configFingerprint;
+    private final Map<String, RuleResult> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RuleResultCache(int maxEntries, String configFingerprint) {
+        this.maxEntries = maxEntries;
+        this.configFingerprint = configFingerprint;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RuleResult> eldest) {
+                return size() > RuleResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Computes a fingerprint of the configuration that the cached rules depend on. Maps and collections are compared by content, regardless of their order.
+     */
+    public static String fingerprint(Object... parts) {
+        var text = new StringBuilder();
+
+        for (var part : parts) {
+            text.append(normalize(part)).append('\n');
+        }
+
+        return sha256(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalize(Object part) {
+        if (part instanceof Map) {
+            var sorted = new TreeMap<String, String>();
+            ((Map<?, ?>) part).forEach((k, v) -> sorted.put(String.valueOf(k), normalize(v)));
+            return sorted.toString();
+        }
+        else if (part instanceof Collection) {
+            return ((Collection<?>) part).stream().map(RuleResultCache::normalize).sorted().collect(Collectors.joining(",", "[", "]"));
+        }
+
+        return String.valueOf(part);
+    }
+
+    public Optional<RuleResult> get(String rule, String contentHash) {
+        RuleResult result;
+
+        synchronized (results) {
+            result = results.get(key(rule, contentHash));
+        }
+
+        (result != null ? hits : misses).increment();
+        return Optional.ofNullable(result);
+    }
+
+    public void put(String rule, String contentHash, RuleResult result) {
+        synchronized (results) {
+            results.put(key(rule, contentHash), result);
+        }
+    }
+
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String key(String rule, String contentHash) {
+        return rule + '|' + contentHash + '|' + configFingerprint;
+    }
+}
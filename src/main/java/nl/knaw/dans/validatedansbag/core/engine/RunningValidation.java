@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A validation that is in progress, as registered in the {@link ValidationRegistry}. Closing it removes it from the registry.
+ */
+public class RunningValidation implements AutoCloseable {
+    @Getter
+    private final String id;
+    @Getter
+    private final Path bagPath;
+    @Getter
+    private final Instant startedAt = Instant.now();
+
+    private final ValidationContext context;
+    private final ValidationRegistry registry;
+    private Thread worker;
+
+    RunningValidation(String id, Path bagPath, ValidationContext context, ValidationRegistry registry) {
+        this.id = id;
+        this.bagPath = bagPath;
+        this.context = context;
+        this.registry = registry;
+        this.worker = Thread.currentThread();
+    }
+
+    public String getCurrentRule() {
+        return context.getCurrentRule();
+    }
+
+    public long getBytesRead() {
+        return context.getBytesRead();
+    }
+
+    public long getFilesHashed() {
+        return context.getFilesHashed();
+    }
+
+    public boolean isCancelled() {
+        return context.isCancelled();
+    }
+
+    /**
+     * Asks the validation to stop. The worker thread is interrupted, so that it also stops when it is blocked, e.g. waiting for the checksum threads; loops that
+     * do a lot of work check the cancelled flag themselves.
+     */
+    synchronized void cancel() {
+        context.cancel();
+
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            // from now on the thread may do other work, so it must not be interrupted anymore
+            worker = null;
+        }
+
+        registry.remove(id);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import lombok.Getter;
+import lombok.Setter;
+import nl.knaw.dans.validatedansbag.core.ValidationCancelledException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * State of a single validation run. The context is bound to the thread that executes the rules, so that services deep down the call chain can report what they
+ * did without every interface having to pass it along. Outside a validation run {@link #current()} returns a detached context that is simply discarded.
+ */
+public class ValidationContext {
+    private static final ThreadLocal<ValidationContext> current = new ThreadLocal<>();
+
+    @Getter
+    @Setter
+    private boolean timingsRequested;
+
+    @Getter
+    @Setter
+    private ValidationProfile profile = ValidationProfile.FULL;
+
+    @Getter
+    @Setter
+    private ValidationListener listener = ValidationListener.NONE;
+
+    @Getter
+    @Setter
+    private FileDigests precomputedDigests = new FileDigests();
+
+    // problems found in the ZIP file the bag came in, before it was extracted; if there are any, the payload was not extracted
+    @Getter
+    @Setter
+    private List<String> incompleteBagProblems = List.of();
+
+    // the digests that matched the manifests in this validation
+    @Getter
+    private final FileDigests verifiedDigests = new FileDigests();
+
+    // the rule that is running, for reporting progress
+    @Getter
+    @Setter
+    private volatile String currentRule;
+
+    private volatile boolean cancelled;
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder filesHashed = new LongAdder();
+    private final LongAdder remoteCalls = new LongAdder();
+    private final List<RuleTiming> ruleTimings = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Object> memo = new ConcurrentHashMap<>();
+
+    public static ValidationContext current() {
+        var context = current.get();
+        return context != null ? context : new ValidationContext();
+    }
+
+    public Activation activate() {
+        var previous = current.get();
+        current.set(this);
+        return () -> {
+            if (previous == null) {
+                current.remove();
+            }
+            else {
+                current.set(previous);
+            }
+        };
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Call this regularly in code that may run for a long time, so that a cancelled validation stops soon.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new ValidationCancelledException("Validation was cancelled");
+        }
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addFilesHashed(long files) {
+        filesHashed.add(files);
+    }
+
+    public void countRemoteCall() {
+        remoteCalls.increment();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getFilesHashed() {
+        return filesHashed.sum();
+    }
+
+    public long getRemoteCalls() {
+        return remoteCalls.sum();
+    }
+
+    /**
+     * Returns the value computed earlier in this validation for the key, or computes it now. Use it for things that several rules need, such as a parsed
+     * document, so that they are only computed once.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String key, Function<String, T> compute) {
+        return (T) memo.computeIfAbsent(key, compute);
+    }
+
+    void addRuleTiming(RuleTiming timing) {
+        ruleTimings.add(timing);
+    }
+
+    public List<RuleTiming> getRuleTimings() {
+        synchronized (ruleTimings) {
+            return List.copyOf(ruleTimings);
+        }
+    }
+
+    public interface Activation extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
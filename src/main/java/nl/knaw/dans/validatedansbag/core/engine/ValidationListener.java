@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+
+/**
+ * Receives events while a validation runs. The methods may be called from several threads at once, e.g. by the threads that verify checksums.
+ */
+public interface ValidationListener {
+    ValidationListener NONE = new ValidationListener() {
+    };
+
+    default void ruleStarted(String number) {
+    }
+
+    default void ruleCompleted(String number, RuleResult result) {
+    }
+
+    default void checksumProgress(ChecksumProgress progress) {
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * How much of the bag is validated. A client can choose a cheaper profile to get quick feedback on the metadata before uploading the payload.
+ */
+@Getter
+@AllArgsConstructor
+public enum ValidationProfile {
+    FULL("full", true, Map.of()),
+    // every rule runs, and the manifests are still checked against the files present, but no payload bytes are read
+    METADATA_ONLY("metadata-only", false, Map.of("1.1.1", "Checksums of payload files were not verified (profile metadata-only)"));
+
+    private final String paramValue;
+    private final boolean payloadChecksumsVerified;
+    // rule number -> what part of the rule was not checked
+    private final Map<String, String> skippedChecks;
+
+    public static ValidationProfile fromParamValue(String value) {
+        return Arrays.stream(values())
+            .filter(p -> p.paramValue.equals(value))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException(String.format("Unknown profile '%s', expected one of %s", value,
+                Arrays.stream(values()).map(ValidationProfile::getParamValue).collect(Collectors.toList()))));
+    }
+}
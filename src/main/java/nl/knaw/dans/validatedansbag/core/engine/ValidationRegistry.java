@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the validations that are running, so that they can be listed and cancelled.
+ */
+public class ValidationRegistry {
+    private final Map<String, RunningValidation> running = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a validation that is about to run on the current thread.
+     */
+    public RunningValidation register(Path bagPath, ValidationContext context) {
+        var validation = new RunningValidation(UUID.randomUUID().toString(), bagPath, context, this);
+        running.put(validation.getId(), validation);
+        return validation;
+    }
+
+    public List<RunningValidation> getRunning() {
+        return running.values().stream()
+            .sorted(Comparator.comparing(RunningValidation::getStartedAt))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return false if there is no running validation with this id
+     */
+    public boolean cancel(String id) {
+        var validation = running.get(id);
+
+        if (validation == null) {
+            return false;
+        }
+
+        validation.cancel();
+        return true;
+    }
+
+    void remove(String id) {
+        running.remove(id);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates executors that start a virtual thread per task. The service is compiled for Java 17, so the virtual thread API is looked up at runtime; on a JVM
+ * without it {@link #isSupported()} returns false.
+ */
+public final class VirtualThreads {
+    private static final Method ofVirtual;
+    private static final Method newThreadPerTaskExecutor;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method newThreadPerTaskExecutorMethod = null;
+
+        try {
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            newThreadPerTaskExecutorMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        }
+        catch (NoSuchMethodException e) {
+            // before Java 21
+        }
+
+        ofVirtual = ofVirtualMethod;
+        newThreadPerTaskExecutor = newThreadPerTaskExecutorMethod;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return ofVirtual != null && newThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * @param namePrefix prefix of the thread names, followed by a counter
+     * @throws UnsupportedOperationException if the JVM does not support virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later, running on " + Runtime.version());
+        }
+
+        try {
+            var builder = ofVirtual.invoke(null);
+            // Thread.Builder is a public interface, so its methods can be invoked through the implementation class
+            var builderInterface = ofVirtual.getReturnType();
+            builder = builderInterface.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            var factory = (ThreadFactory) builderInterface.getMethod("factory").invoke(builder);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        }
+        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Like {@link #newThreadPerTaskExecutor(String)}, but at most the given number of tasks run at the same time; the other tasks wait on their virtual
+     * thread for a permit.
+     *
+     * @param namePrefix         prefix of the thread names, followed by a counter
+     * @param maxConcurrentTasks the number of tasks that may run at the same time
+     * @throws UnsupportedOperationException if the JVM does not support virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix, int maxConcurrentTasks) {
+        return limitConcurrency(newThreadPerTaskExecutor(namePrefix), maxConcurrentTasks);
+    }
+
+    static ExecutorService limitConcurrency(ExecutorService executor, int maxConcurrentTasks) {
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("maxConcurrentTasks must be at least 1, but was " + maxConcurrentTasks);
+        }
+
+        return new ConcurrencyLimitingExecutorService(executor, new Semaphore(maxConcurrentTasks));
+    }
+
+    private static class ConcurrencyLimitingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        ConcurrencyLimitingExecutorService(ExecutorService delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                }
+                catch (InterruptedException e) {
+                    // shut down while waiting; complete the future, so that no one waits for a task that never runs
+                    if (command instanceof Future) {
+                        ((Future<?>) command).cancel(false);
+                    }
+
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                try {
+                    command.run();
+                }
+                finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
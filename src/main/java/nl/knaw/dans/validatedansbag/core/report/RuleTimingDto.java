@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.report;
+
+import lombok.Data;
+import nl.knaw.dans.validatedansbag.core.engine.RuleTiming;
+
+@Data
+public class RuleTimingDto {
+    private String rule;
+    private double wallTimeMillis;
+    // null if the JVM cannot measure thread CPU time
+    private Double cpuTimeMillis;
+    private long bytesRead;
+    private long filesHashed;
+    private long remoteCalls;
+
+    public static RuleTimingDto of(RuleTiming timing) {
+        var dto = new RuleTimingDto();
+        dto.setRule(timing.getNumber());
+        dto.setWallTimeMillis(toMillis(timing.getWallTimeNanos()));
+        dto.setCpuTimeMillis(timing.getCpuTimeNanos() < 0 ? null : toMillis(timing.getCpuTimeNanos()));
+        dto.setBytesRead(timing.getBytesRead());
+        dto.setFilesHashed(timing.getFilesHashed());
+        dto.setRemoteCalls(timing.getRemoteCalls());
+        return dto;
+    }
+
+    static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
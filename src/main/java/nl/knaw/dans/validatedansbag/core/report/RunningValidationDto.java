@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.report;
+
+import lombok.Data;
+import nl.knaw.dans.validatedansbag.core.engine.RunningValidation;
+
+@Data
+public class RunningValidationDto {
+    private String id;
+    private String bagPath;
+    private String startedAt;
+    private String currentRule;
+    private long bytesRead;
+    private long filesHashed;
+    private boolean cancelled;
+
+    public static RunningValidationDto of(RunningValidation validation) {
+        var dto = new RunningValidationDto();
+        dto.setId(validation.getId());
+        dto.setBagPath(validation.getBagPath().toString());
+        dto.setStartedAt(validation.getStartedAt().toString());
+        dto.setCurrentRule(validation.getCurrentRule());
+        dto.setBytesRead(validation.getBytesRead());
+        dto.setFilesHashed(validation.getFilesHashed());
+        dto.setCancelled(validation.isCancelled());
+        return dto;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.report;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.engine.ChecksumProgress;
+
+import java.util.List;
+
+/**
+ * A line in a streamed validation response. The {@code event} field tells which of the other fields are present.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ValidationEventDto {
+    public static final String RULE = "rule";
+    public static final String CHECKSUM_PROGRESS = "checksumProgress";
+    public static final String RESULT = "result";
+    public static final String ERROR = "error";
+
+    private String event;
+
+    // rule
+    private String rule;
+    private String status;
+    private List<String> errorMessages;
+
+    // checksumProgress
+    private Long filesHashed;
+    private Long filesTotal;
+    private Long bytesHashed;
+    private Long bytesRemaining;
+
+    // result
+    private ValidateOkDto result;
+
+    // error
+    private String error;
+
+    public static ValidationEventDto rule(String number, RuleResult result) {
+        var event = new ValidationEventDto();
+        event.setEvent(RULE);
+        event.setRule(number);
+        event.setStatus(result.getStatus().name());
+        event.setErrorMessages(result.getErrorMessages() == null || result.getErrorMessages().isEmpty() ? null : result.getErrorMessages());
+        return event;
+    }
+
+    public static ValidationEventDto checksumProgress(ChecksumProgress progress) {
+        var event = new ValidationEventDto();
+        event.setEvent(CHECKSUM_PROGRESS);
+        event.setFilesHashed(progress.getFilesHashed());
+        event.setFilesTotal(progress.getFilesTotal());
+        event.setBytesHashed(progress.getBytesHashed());
+        event.setBytesRemaining(progress.getBytesRemaining());
+        return event;
+    }
+
+    public static ValidationEventDto result(ValidateOkDto result) {
+        var event = new ValidationEventDto();
+        event.setEvent(RESULT);
+        event.setResult(result);
+        return event;
+    }
+
+    public static ValidationEventDto error(String error) {
+        var event = new ValidationEventDto();
+        event.setEvent(ERROR);
+        event.setError(error);
+        return event;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.report;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+
+import java.util.List;
+
+/**
+ * {@link ValidateOkDto} with the optional sections that a client can request on top of what the API definition describes. Sections that were not requested are
+ * left out of the JSON, so that the response is unchanged for clients that do not ask for them.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class ValidationReportDto extends ValidateOkDto {
+
+    @JsonProperty("timings")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TimingsDto timings;
+
+    @JsonProperty("profile")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String profile;
+
+    @JsonProperty("skippedChecks")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<SkippedCheckDto> skippedChecks;
+}
@@ -17,15 +17,12 @@ package nl.knaw.dans.validatedansbag.core.rules;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
-import nl.knaw.dans.validatedansbag.core.service.FileService;
+import nl.knaw.dans.validatedansbag.core.service.XmlReader;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.stream.StreamSource;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
@@ -35,9 +32,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BagFileConformsToXmlSchema implements BagValidatorRule {
     protected final Path file;
-    protected final FileService fileService;
+    protected final XmlReader xmlReader;
     protected final String schema;
-    private final XmlSchemaValidator xmlSchemaValidator;
 
     @Override
     public RuleResult validate(Path path) throws Exception {
@@ -61,12 +57,11 @@ public class BagFileConformsToXmlSchema implements BagValidatorRule {
     }
 
     private List<String> validateXmlFile(Path file, String schema) throws ParserConfigurationException, IOException, SAXException {
-        var xml = fileService.readFileContents(file);
-        var results = xmlSchemaValidator.validateDocument(new StreamSource(new ByteArrayInputStream(xml)), schema);
+        // the document is parsed while it is validated and then shared with the rules that read it
+        var results = xmlReader.validateXmlFile(file, schema);
 
         return results.stream()
-            .map(Throwable::getLocalizedMessage)
-            .map(e -> String.format(" - %s", e))
+            .map(e -> String.format(" - line %d, column %d: %s", e.getLineNumber(), e.getColumnNumber(), e.getLocalizedMessage()))
             .collect(Collectors.toList());
     }
 
@@ -27,6 +27,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.core.BagNotCompleteException;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 
 import java.nio.file.NoSuchFileException;
@@ -50,7 +51,7 @@ public class BagIsValid implements BagValidatorRule {
         // sadly FileNotInManifestException bubbles up as an IOException
         catch (FileNotInManifestException | InvalidBagitFileFormatException | MissingPayloadManifestException |
                MissingPayloadDirectoryException | FileNotInPayloadDirectoryException | MissingBagitFileException |
-               CorruptChecksumException | VerificationException | NoSuchFileException e) {
+               CorruptChecksumException | VerificationException | NoSuchFileException | BagNotCompleteException e) {
 
             return RuleResult.error(String.format(
                 "Bag is not valid: %s", e.getMessage()
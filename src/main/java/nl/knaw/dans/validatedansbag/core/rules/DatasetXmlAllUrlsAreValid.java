@@ -20,65 +20,35 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
 
+/**
+ * Checks that all URLs in dataset.xml are http or https URLs. These are the href attributes, the schemeURI and valueURI attributes of ddm:subject, and the
+ * text of elements with an xsi:type or scheme attribute that marks them as URI or URL. They are collected in a single traversal of the document, and each
+ * distinct value is checked only once.
+ */
 @AllArgsConstructor
 @Slf4j
 public class DatasetXmlAllUrlsAreValid implements BagValidatorRule {
+    private static final Set<String> URL_TYPES = Set.of("dcterms:URI", "dcterms:URL", "URI", "URL");
+
     private final XmlReader xmlReader;
 
     @Override
     public RuleResult validate(Path path) throws Exception {
         var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
+        var errors = new ArrayList<String>();
 
-        var hrefNodes = xmlReader.xpathToStreamOfStrings(document, "//*/@href");
-        var schemeURINodes = xmlReader.xpathToStreamOfStrings(document, "//ddm:subject/@schemeURI");
-        var valueURINodes = xmlReader.xpathToStreamOfStrings(document, "//ddm:subject/@valueURI");
-
-        var expr = List.of(
-                "//*[@xsi:type='dcterms:URI']",
-                "//*[@xsi:type='dcterms:URL']",
-                "//*[@xsi:type='URI']",
-                "//*[@xsi:type='URL']",
-                "//*[@scheme='dcterms:URI']",
-                "//*[@scheme='dcterms:URL']",
-                "//*[@scheme='URI']",
-                "//*[@scheme='URL']"
-        );
-
-        var elementSelectors = xmlReader.xpathsToStreamOfStrings(document, expr);
-
-        var errors = Stream.of(hrefNodes, schemeURINodes, valueURINodes, elementSelectors)
-                .flatMap(i -> i)
-                .map(value -> {
-                    log.debug("Validating URI '{}'", value);
-
-                    try {
-                        var uri = new URI(value);
-
-                        if (uri.getScheme() == null || !List.of("http", "https").contains(uri.getScheme().toLowerCase(Locale.ROOT))) {
-                            return String.format(
-                                    "dataset.xml: protocol '%s' in uri '%s' is not one of the accepted protocols [http, https]", uri.getScheme(), uri
-                            );
-                        }
-                    }
-                    catch (URISyntaxException e) {
-                        return String.format("dataset.xml: '%s' is not a valid uri", value);
-                    }
-
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(ArrayList::new));
+        visit(document.getDocumentElement(), new HashSet<>(), errors);
 
         log.debug("Invalid URI's found: {}", errors);
 
@@ -87,6 +57,101 @@ public class DatasetXmlAllUrlsAreValid implements BagValidatorRule {
         }
 
         return RuleResult.ok();
+    }
+
+    private void visit(Element element, Set<String> checked, List<String> errors) {
+        check(element.getAttributeNodeNS(null, "href"), checked, errors);
+
+        if (XmlReader.NAMESPACE_DDM.equals(element.getNamespaceURI()) && "subject".equals(element.getLocalName())) {
+            check(element.getAttributeNodeNS(null, "schemeURI"), checked, errors);
+            check(element.getAttributeNodeNS(null, "valueURI"), checked, errors);
+        }
+
+        if (URL_TYPES.contains(element.getAttributeNS(XmlReader.NAMESPACE_XSI, "type")) || URL_TYPES.contains(element.getAttributeNS(null, "scheme"))) {
+            check(element, checked, errors);
+        }
+
+        for (var child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                visit((Element) child, checked, errors);
+            }
+        }
+    }
+
+    private void check(Node node, Set<String> checked, List<String> errors) {
+        if (node == null) {
+            return;
+        }
+
+        var value = node.getTextContent();
+
+        // the same URL is often used many times, e.g. for a license or a thesaurus
+        if (!checked.add(value)) {
+            return;
+        }
+
+        log.debug("Validating URI '{}'", value);
+
+        var error = validateUrl(value);
+
+        if (error != null) {
+            errors.add(error);
+        }
+    }
+
+    private String validateUrl(String value) {
+        // most values are valid, so the cheap check whether the scheme is http or https comes first
+        var scheme = getScheme(value);
+
+        if (scheme != null && !isHttp(scheme)) {
+            return String.format("dataset.xml: protocol '%s' in uri '%s' is not one of the accepted protocols [http, https]", scheme, value);
+        }
+
+        try {
+            var uri = new URI(value);
+
+            if (uri.getScheme() == null || !isHttp(uri.getScheme())) {
+                return String.format(
+                    "dataset.xml: protocol '%s' in uri '%s' is not one of the accepted protocols [http, https]", uri.getScheme(), uri
+                );
+            }
+        }
+        catch (URISyntaxException e) {
+            return String.format("dataset.xml: '%s' is not a valid uri", value);
+        }
+
+        return null;
+    }
+
+    private static boolean isHttp(String scheme) {
+        return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme);
+    }
+
+    /**
+     * Returns the scheme of the URI, as defined in RFC 3986: a letter followed by letters, digits, '+', '-' or '.', and a colon. Returns null if the value does
+     * not start with a scheme.
+     */
+    static String getScheme(String value) {
+        if (value.isEmpty() || !isAsciiLetter(value.charAt(0))) {
+            return null;
+        }
+
+        for (var i = 1; i < value.length(); ++i) {
+            var c = value.charAt(i);
+
+            if (c == ':') {
+                return value.substring(0, i);
+            }
+
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return null;
+            }
+        }
+
+        return null;
+    }
 
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 }
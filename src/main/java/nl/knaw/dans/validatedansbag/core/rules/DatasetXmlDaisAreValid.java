@@ -20,10 +20,10 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import nl.knaw.dans.validatedansbag.core.validator.IdentifierType;
 import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidator;
 
 import java.nio.file.Path;
-import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Slf4j
@@ -35,10 +35,7 @@ public class DatasetXmlDaisAreValid implements BagValidatorRule {
     public RuleResult validate(Path path) throws Exception {
         var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
         var expr = "//dcx-dai:DAI";
-        var invalidDais = xmlReader.xpathToStreamOfStrings(document, expr)
-            .peek(dai -> log.debug("Validating if {} is a valid DAI", dai))
-            .filter((dai) -> !identifierValidator.validateDai(dai))
-            .collect(Collectors.toList());
+        var invalidDais = identifierValidator.findInvalid(IdentifierType.DAI, xmlReader.xpathToStreamOfStrings(document, expr));
 
         log.debug("Identifiers (DAI) that do not match the pattern: {}", invalidDais);
 
@@ -20,11 +20,10 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import nl.knaw.dans.validatedansbag.core.validator.GmlGeometries;
 
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
 
 @AllArgsConstructor
 @Slf4j
@@ -33,53 +32,27 @@ public class DatasetXmlGmlPointsHaveAtLeastTwoValues implements BagValidatorRule
 
     @Override
     public RuleResult validate(Path path) throws Exception {
-        var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
+        var file = path.resolve("metadata/dataset.xml");
+        var document = xmlReader.readXmlFile(file);
 
-        // points
-        var expr = "//gml:Point/gml:pos | //gml:lowerCorner | //gml:upperCorner";
+        // points: gml:Point/gml:pos, gml:lowerCorner and gml:upperCorner
+        var errors = new ArrayList<String>();
 
-        var errors = xmlReader.xpathToStream(document, expr)
-            .map(value -> {
-                var attr = value.getParentNode().getAttributes().getNamedItem("srsName");
-                var text = value.getTextContent();
-                var isRD = attr != null && "urn:ogc:def:crs:EPSG::28992".equals(attr.getTextContent());
+        for (var point : GmlGeometries.of(file, document).getPoints()) {
+            var isRD = GmlGeometries.SRS_NAME_RD.equals(point.getSrsName());
 
-                log.debug("Validating point {} (isRD: {})", text, isRD);
+            log.debug("Validating point {} (isRD: {})", point.getText(), isRD);
 
-                try {
-                    var parts = Arrays.stream(text.split("\\s+"))
-                        .map(String::trim)
-                        .map(Float::parseFloat)
-                        .toList();
-
-                    if (parts.size() < 2) {
-                        return String.format(
-                            "%s has less than two coordinates: %s", value.getLocalName(), text
-                        );
-                    }
-                    else if (isRD) {
-                        var x = parts.get(0);
-                        var y = parts.get(1);
-
-                        var valid = x >= -7000 && x <= 300000 && y >= 289000 && y <= 629000;
-
-                        if (!valid) {
-                            return String.format(
-                                "%s is outside RD bounds: %s", value.getLocalName(), text
-                            );
-                        }
-                    }
-                }
-                catch (NumberFormatException e) {
-                    return String.format(
-                        "%s has non numeric coordinates: %s", value.getLocalName(), text
-                    );
-                }
-
-                return null;
-            })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            if (!point.isNumeric()) {
+                errors.add(String.format("%s has non numeric coordinates: %s", point.getElementName(), point.getText()));
+            }
+            else if (point.getCoordinates().length < 2) {
+                errors.add(String.format("%s has less than two coordinates: %s", point.getElementName(), point.getText()));
+            }
+            else if (isRD && !GmlGeometries.getBounds(point.getSrsName()).orElseThrow().contains(point.getCoordinates(), 0)) {
+                errors.add(String.format("%s is outside RD bounds: %s", point.getElementName(), point.getText()));
+            }
+        }
 
         log.debug("Errors while validating points: {}", errors);
 
@@ -20,6 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import nl.knaw.dans.validatedansbag.core.validator.GmlGeometries;
 import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidator;
 
 import java.nio.file.Path;
@@ -33,16 +34,15 @@ public class DatasetXmlGmlPolygonPosListIsWellFormed implements BagValidatorRule
 
     @Override
     public RuleResult validate(Path path) throws Exception {
-        var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
-        var expr = "//dcx-gml:spatial//gml:posList";//*[local-name() = 'posList']";
-        var nodes = xmlReader.xpathToStreamOfStrings(document, expr);
-
-        var match = nodes
-                .peek(posList -> log.debug("Validation posList value {}", posList))
-                .map(polygonListValidator::validatePolygonList)
-                .filter(e -> !e.isValid())
-                .map(PolygonListValidator.PolygonValidationResult::getMessage)
-                .collect(Collectors.toList());
+        var file = path.resolve("metadata/dataset.xml");
+        var document = xmlReader.readXmlFile(file);
+        // the gml:posList elements in dcx-gml:spatial
+        var match = GmlGeometries.of(file, document).getPosLists().stream()
+            .peek(posList -> log.debug("Validation posList value {}", posList))
+            .map(polygonListValidator::validatePolygonList)
+            .filter(e -> !e.isValid())
+            .map(PolygonListValidator.PolygonValidationResult::getMessage)
+            .collect(Collectors.toList());
 
         log.debug("Invalid posList elements: {}", match);
 
@@ -20,9 +20,9 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import nl.knaw.dans.validatedansbag.core.validator.GmlGeometries;
 
 import java.nio.file.Path;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,30 +32,14 @@ public class DatasetXmlGmlPolygonsInSameMultiSurfaceHaveSameSrsName implements B
 
     @Override
     public RuleResult validate(Path path) throws Exception {
-        var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
-        var expr = "//gml:MultiSurface";
-        var nodes = xmlReader.xpathToStream(document, expr);
-        var match = nodes.filter(node -> {
-                try {
-                    var srsNames = xmlReader.xpathToStreamOfStrings(node, ".//gml:Polygon/@srsName")
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toSet());
-
-                    log.debug("Found unique srsName values: {}", srsNames);
-                    if (srsNames.size() > 1) {
-                        return true;
-                    }
-                }
-                catch (Throwable e) {
-                    log.error("Error checking srsNames attribute", e);
-                    return true;
-                }
-
-                return false;
-            })
+        var file = path.resolve("metadata/dataset.xml");
+        var document = xmlReader.readXmlFile(file);
+        var match = GmlGeometries.of(file, document).getMultiSurfaceSrsNames().stream()
+            .peek(srsNames -> log.debug("Found unique srsName values: {}", srsNames))
+            .filter(srsNames -> srsNames.size() > 1)
             .collect(Collectors.toList());
 
-        log.debug("Invalid MultiSurface elements that contain polygons with different srsNames: {}", match);
+        log.debug("srsNames of MultiSurface elements that contain polygons with different srsNames: {}", match);
 
         if (!match.isEmpty()) {
             return RuleResult.error("dataset.xml: Found MultiSurface element containing polygons with different srsNames");
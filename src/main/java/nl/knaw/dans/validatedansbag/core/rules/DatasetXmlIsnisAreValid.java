@@ -20,10 +20,10 @@ import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.XmlReader;
+import nl.knaw.dans.validatedansbag.core.validator.IdentifierType;
 import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidator;
 
 import java.nio.file.Path;
-import java.util.stream.Collectors;
 
 @Slf4j
 @AllArgsConstructor
@@ -35,10 +35,7 @@ public class DatasetXmlIsnisAreValid implements BagValidatorRule {
     public RuleResult validate(Path path) throws Exception {
         var document = xmlReader.readXmlFile(path.resolve("metadata/dataset.xml"));
         var expr = "//dcx-dai:ISNI";
-        var match = xmlReader.xpathToStreamOfStrings(document, expr)
-            .peek(id -> log.debug("Validating if {} is a valid ISNI", id))
-            .filter((id) -> !identifierValidator.validateIsni(id))
-            .collect(Collectors.toList());
+        var match = identifierValidator.findInvalid(IdentifierType.ISNI, xmlReader.xpathToStreamOfStrings(document, expr));
 
         log.debug("Identifiers (ISNI) that do not match the pattern: {}", match);
 
@@ -19,7 +19,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
-import nl.knaw.dans.validatedansbag.core.service.FileService;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.FilesXmlService;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsService;
 import org.apache.commons.collections4.CollectionUtils;
@@ -37,7 +37,7 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Slf4j
 public class FilesXmlFilePathAttributesContainLocalBagPathAndNonPayloadFilesAreNotDescribed implements BagValidatorRule {
-    private final FileService fileService;
+    private final BagItMetadataReader bagItMetadataReader;
     private final FilesXmlService filesXmlService;
     private final OriginalFilepathsService originalFilepathsService;
 
@@ -54,15 +54,10 @@ public class FilesXmlFilePathAttributesContainLocalBagPathAndNonPayloadFilesAreN
     }
 
     Set<Path> filesXmlDescribesOnlyPayloadFiles(Path path) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
-        var dataPath = path.resolve("data");
-
         // find all files that exist on disk
-        var bagPaths = fileService.getAllFiles(dataPath)
-            .stream()
-            .map(path::relativize)
-            .collect(Collectors.toSet());
+        var bagPaths = bagItMetadataReader.getPayloadListing(path).getFiles();
 
-        log.debug("Paths that exist on path {}: {}", dataPath, bagPaths);
+        log.debug("Paths that exist on path {}: {}", path.resolve("data"), bagPaths);
 
         var bagPathMapping = originalFilepathsService.getMappingsFromOriginalToRenamed(path);
 
@@ -19,7 +19,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
-import nl.knaw.dans.validatedansbag.core.service.FileService;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.FilesXmlService;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsService;
 import org.apache.commons.collections4.CollectionUtils;
@@ -40,7 +40,7 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class FilesXmlNoDuplicateFilesAndEveryPayloadFileIsDescribed implements BagValidatorRule {
     private final FilesXmlService filesXmlService;
-    private final FileService fileService;
+    private final BagItMetadataReader bagItMetadataReader;
     private final OriginalFilepathsService originalFilepathsService;
 
     @Override
@@ -82,15 +82,10 @@ public class FilesXmlNoDuplicateFilesAndEveryPayloadFileIsDescribed implements B
     }
 
     Set<Path> filesXmlDescribesAllPayloadFiles(Path path) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException {
-        var dataPath = path.resolve("data");
-
         // find all files that exist on disk
-        var bagPaths = fileService.getAllFiles(dataPath)
-            .stream()
-            .map(path::relativize)
-            .collect(Collectors.toSet());
+        var bagPaths = bagItMetadataReader.getPayloadListing(path).getFiles();
 
-        log.debug("Paths that exist on path {}: {}", dataPath, bagPaths);
+        log.debug("Paths that exist on path {}: {}", path.resolve("data"), bagPaths);
 
         var bagPathMapping = originalFilepathsService.getMappingsFromOriginalToRenamed(path);
 
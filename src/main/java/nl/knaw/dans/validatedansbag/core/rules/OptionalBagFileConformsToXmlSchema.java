@@ -16,16 +16,19 @@
 package nl.knaw.dans.validatedansbag.core.rules;
 
 import lombok.extern.slf4j.Slf4j;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.FileService;
+import nl.knaw.dans.validatedansbag.core.service.XmlReader;
 
 import java.nio.file.Path;
 
 @Slf4j
 public class OptionalBagFileConformsToXmlSchema extends BagFileConformsToXmlSchema {
-    public OptionalBagFileConformsToXmlSchema(Path file, String schema, XmlSchemaValidator validator, FileService fileService) {
-        super(file, fileService, schema, validator);
+    private final FileService fileService;
+
+    public OptionalBagFileConformsToXmlSchema(Path file, String schema, XmlReader xmlReader, FileService fileService) {
+        super(file, xmlReader, schema);
+        this.fileService = fileService;
     }
 
     @Override
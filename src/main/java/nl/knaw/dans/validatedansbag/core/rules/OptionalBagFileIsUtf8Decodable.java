@@ -21,8 +21,6 @@ import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.FileService;
 
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 
 @Slf4j
@@ -33,18 +31,19 @@ public class OptionalBagFileIsUtf8Decodable implements BagValidatorRule {
 
     @Override
     public RuleResult validate(Path path) throws Exception {
-        try {
-            var target = path.resolve(filename);
-            if (fileService.exists(target)) {
-                fileService.readFileContents(target, StandardCharsets.UTF_8);
-                return RuleResult.ok();
-            }
-            else {
-                return RuleResult.skipDependencies();
-            }
+        var target = path.resolve(filename);
+
+        if (!fileService.exists(target)) {
+            return RuleResult.skipDependencies();
         }
-        catch (CharacterCodingException e) {
-            return RuleResult.error("Input not valid UTF-8: " + e.getMessage());
+
+        var invalid = fileService.findInvalidUtf8(target);
+
+        if (invalid.isPresent()) {
+            log.debug("{} is not valid UTF-8: {}", target, invalid.get());
+            return RuleResult.error("Input not valid UTF-8: " + invalid.get());
         }
+
+        return RuleResult.ok();
     }
 }
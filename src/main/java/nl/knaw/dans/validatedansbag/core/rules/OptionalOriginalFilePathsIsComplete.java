@@ -19,7 +19,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
-import nl.knaw.dans.validatedansbag.core.service.FileService;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.FilesXmlService;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsService;
 import org.apache.commons.collections4.CollectionUtils;
@@ -31,7 +31,7 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OptionalOriginalFilePathsIsComplete implements BagValidatorRule {
     private final OriginalFilepathsService originalFilepathsService;
-    private final FileService fileService;
+    private final BagItMetadataReader bagItMetadataReader;
     private final FilesXmlService filesXmlService;
 
     @Override
@@ -49,14 +49,9 @@ public class OptionalOriginalFilePathsIsComplete implements BagValidatorRule {
         log.debug("Paths in files.xml: {}", fileXmlPaths);
 
         // the files on disk
-        var dataPath = path.resolve("data");
-        var actualFiles = fileService.getAllFiles(dataPath)
-            .stream()
-            .filter(i -> !dataPath.equals(i))
-            .map(path::relativize)
-            .collect(Collectors.toSet());
+        var actualFiles = bagItMetadataReader.getPayloadListing(path).getFiles();
 
-        log.debug("Paths inside {}: {}", dataPath, fileXmlPaths);
+        log.debug("Paths inside {}: {}", path.resolve("data"), actualFiles);
 
         var renamedFiles = mapping.stream().map(OriginalFilepathsService.OriginalFilePathItem::getRenamedFilename).collect(Collectors.toSet());
         var originalFiles = mapping.stream().map(OriginalFilepathsService.OriginalFilePathItem::getOriginalFilename).collect(Collectors.toSet());
@@ -16,7 +16,6 @@
 package nl.knaw.dans.validatedansbag.core.rules;
 
 import lombok.AllArgsConstructor;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.NumberedRule;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.DataverseService;
@@ -33,6 +32,7 @@ import org.apache.commons.collections4.ListUtils;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,8 +53,6 @@ public class RuleSets {
 
     private final BagItMetadataReader bagItMetadataReader;
 
-    private final XmlSchemaValidator xmlSchemaValidator;
-
     private final LicenseValidator licenseValidator;
 
     private final IdentifierValidator identifierValidator;
@@ -69,6 +67,22 @@ public class RuleSets {
 
     private final Map<URI, Set<String>> schemeUriToValidCodes;
 
+    /**
+     * The rules whose result only depends on the contents of one file in the bag and on the configuration, mapped to that file. Their results can be cached by
+     * file contents.
+     */
+    public static Map<String, Path> getMetadataOnlyRuleInputs() {
+        var inputs = new HashMap<String, Path>();
+
+        for (var rule : List.of("3.1.1", "3.1.2", "3.1.3(a)", "3.1.3(b)", "3.1.3(c)", "3.1.4", "3.1.5", "3.1.6", "3.1.7", "3.1.8", "3.1.9", "3.1.10", "3.1.11",
+            "3.1.12(a)", "3.1.12(b)", "5.2(a)", "5.2(b)")) {
+            inputs.put(rule, datasetPath);
+        }
+
+        inputs.put("3.2.1", metadataFilesPath);
+        return inputs;
+    }
+
     public List<NumberedRule> getDataStationSet() {
         return ListUtils.union(getCommonRules(), getDataStationOnlyRules());
     }
@@ -109,7 +123,7 @@ public class RuleSets {
             // 3 Metadata requirements¶
 
             // 3.1 metadata/dataset.xml¶
-            new NumberedRule("3.1.1", new BagFileConformsToXmlSchema(datasetPath, fileService,"dataset.xml", xmlSchemaValidator), List.of("1.1.1", "2.2(a)")),
+            new NumberedRule("3.1.1", new BagFileConformsToXmlSchema(datasetPath, xmlReader, "dataset.xml"), List.of("1.1.1", "2.2(a)")),
             new NumberedRule("3.1.2", new DatasetXmlContainsExactlyOneDctermsLicenseWithXsiTypeUri(xmlReader, licenseValidator), List.of("3.1.1")),
 
             new NumberedRule("3.1.3(a)", new DatasetXmlDaisAreValid(xmlReader, identifierValidator), List.of("3.1.1")),
@@ -128,13 +142,13 @@ public class RuleSets {
             new NumberedRule("3.1.12(b)", new DatasetXmlValueCodesAreValid(xmlReader, schemeUriToValidCodes), List.of("3.1.1")),
 
             // 3.2 metadata/files.xml
-            new NumberedRule("3.2.1", new BagFileConformsToXmlSchema(metadataFilesPath, fileService,"files.xml", xmlSchemaValidator), List.of("1.1.1", "2.2(b)")),
-            new NumberedRule("3.2.2", new FilesXmlFilePathAttributesContainLocalBagPathAndNonPayloadFilesAreNotDescribed(fileService, filesXmlService, originalFilepathService), List.of("3.2.1")),
-            new NumberedRule("3.2.3", new FilesXmlNoDuplicateFilesAndEveryPayloadFileIsDescribed(filesXmlService, fileService, originalFilepathService), List.of("3.2.1")),
+            new NumberedRule("3.2.1", new BagFileConformsToXmlSchema(metadataFilesPath, xmlReader, "files.xml"), List.of("1.1.1", "2.2(b)")),
+            new NumberedRule("3.2.2", new FilesXmlFilePathAttributesContainLocalBagPathAndNonPayloadFilesAreNotDescribed(bagItMetadataReader, filesXmlService, originalFilepathService), List.of("3.2.1")),
+            new NumberedRule("3.2.3", new FilesXmlNoDuplicateFilesAndEveryPayloadFileIsDescribed(filesXmlService, bagItMetadataReader, originalFilepathService), List.of("3.2.1")),
 
             // 3.3 original-filepaths.txt
             new NumberedRule("3.3.1", new OptionalBagFileIsUtf8Decodable(Path.of("original-filepaths.txt"), fileService), List.of("1.1.1")),
-            new NumberedRule("3.3.2", new OptionalOriginalFilePathsIsComplete(originalFilepathService, fileService, filesXmlService), List.of("3.3.1")));
+            new NumberedRule("3.3.2", new OptionalOriginalFilePathsIsComplete(originalFilepathService, bagItMetadataReader, filesXmlService), List.of("3.3.1")));
     }
 
     private List<NumberedRule> getDataStationOnlyRules() {
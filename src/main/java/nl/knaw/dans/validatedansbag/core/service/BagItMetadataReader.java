@@ -27,6 +27,7 @@ import gov.loc.repository.bagit.exceptions.MissingPayloadManifestException;
 import gov.loc.repository.bagit.exceptions.UnparsableVersionException;
 import gov.loc.repository.bagit.exceptions.UnsupportedAlgorithmException;
 import gov.loc.repository.bagit.exceptions.VerificationException;
+import nl.knaw.dans.validatedansbag.core.BagNotCompleteException;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -40,7 +41,13 @@ public interface BagItMetadataReader {
 
     void verifyBag(Path path) throws MaliciousPathException, UnsupportedAlgorithmException, InvalidBagitFileFormatException, IOException, MissingPayloadManifestException,
         MissingPayloadDirectoryException, FileNotInPayloadDirectoryException, InterruptedException, MissingBagitFileException, CorruptChecksumException, VerificationException,
-        UnparsableVersionException;
+        UnparsableVersionException, BagNotCompleteException;
+
+    /**
+     * Returns the files in the payload directory joined with the manifests of the bag. The directory is walked once per validation, by {@link #verifyBag(Path)}
+     * or by the first call of this method.
+     */
+    PayloadListing getPayloadListing(Path bagDir) throws IOException;
 
     List<String> getField(Path bagDir, String field);
 
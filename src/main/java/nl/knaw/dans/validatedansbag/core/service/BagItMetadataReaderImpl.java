@@ -28,11 +28,14 @@ import gov.loc.repository.bagit.exceptions.UnparsableVersionException;
 import gov.loc.repository.bagit.exceptions.UnsupportedAlgorithmException;
 import gov.loc.repository.bagit.exceptions.VerificationException;
 import gov.loc.repository.bagit.reader.BagReader;
-import gov.loc.repository.bagit.verify.BagVerifier;
+import gov.loc.repository.bagit.verify.MandatoryVerifier;
+import nl.knaw.dans.validatedansbag.core.BagNotCompleteException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +44,12 @@ import java.util.Set;
 public class BagItMetadataReaderImpl implements BagItMetadataReader {
     private static final Logger log = LoggerFactory.getLogger(BagItMetadataReaderImpl.class);
 
+    private final ChecksumVerifier checksumVerifier;
+
+    public BagItMetadataReaderImpl(ChecksumVerifier checksumVerifier) {
+        this.checksumVerifier = checksumVerifier;
+    }
+
     @Override
     public Optional<Bag> getBag(Path path) {
         try {
@@ -55,18 +64,65 @@ public class BagItMetadataReaderImpl implements BagItMetadataReader {
     public void verifyBag(Path path)
         throws MaliciousPathException, UnsupportedAlgorithmException, InvalidBagitFileFormatException, IOException, MissingPayloadManifestException,
         MissingPayloadDirectoryException, FileNotInPayloadDirectoryException, InterruptedException, MissingBagitFileException, CorruptChecksumException, VerificationException,
-        UnparsableVersionException {
+        UnparsableVersionException, BagNotCompleteException {
+
+        // found in the ZIP file the bag came in; its payload was not extracted, so the checks below would report missing files instead
+        var zipProblems = ValidationContext.current().getIncompleteBagProblems();
+
+        if (!zipProblems.isEmpty()) {
+            throw new BagNotCompleteException(zipProblems);
+        }
 
         var bag = new BagReader().read(path);
 
-        try (var verifier = new BagVerifier()) {
-            var ignoreHiddenFiles = false;
+        // the same checks as BagVerifier.isComplete, but the payload directory is walked only once, and the listing is kept for the rules that need it
+        log.debug("Verifying bag is complete on path {}", path);
+        MandatoryVerifier.checkFetchItemsExist(bag.getItemsToFetch(), bag.getRootDir());
+        MandatoryVerifier.checkBagitFileExists(bag.getRootDir(), bag.getVersion());
+        MandatoryVerifier.checkPayloadDirectoryExists(bag);
+        MandatoryVerifier.checkIfAtLeastOnePayloadManifestsExist(bag.getRootDir(), bag.getVersion());
+
+        var listing = getPayloadListing(path, bag);
+
+        if (!listing.isComplete()) {
+            throw new BagNotCompleteException(listing.getProblems());
+        }
+
+        log.debug("Verifying checksums of bag on path {}", path);
+        checksumVerifier.verify(bag);
+    }
+
+    @Override
+    public PayloadListing getPayloadListing(Path bagDir) throws IOException {
+        return getPayloadListing(bagDir, null);
+    }
 
-            log.debug("Verifying bag is complete on path {}", path);
-            verifier.isComplete(bag, ignoreHiddenFiles);
+    private PayloadListing getPayloadListing(Path bagDir, Bag bag) throws IOException {
+        try {
+            return ValidationContext.current().computeIfAbsent("payload-listing:" + bagDir.toAbsolutePath().normalize(), k -> {
+                try {
+                    var source = bag != null ? bag : readBag(bagDir);
+                    return PayloadListing.build(bagDir, getBagManifests(source), source.getTagManifests());
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-            log.debug("Verifying bag is valid on path {}", path);
-            verifier.isValid(bag, ignoreHiddenFiles);
+    private static Bag readBag(Path bagDir) throws IOException {
+        try {
+            return new BagReader().read(bagDir);
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IOException("Could not read bag on path " + bagDir, e);
         }
     }
 
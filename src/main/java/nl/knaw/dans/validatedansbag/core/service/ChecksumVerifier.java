@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import gov.loc.repository.bagit.domain.Bag;
+import gov.loc.repository.bagit.domain.Manifest;
+import gov.loc.repository.bagit.exceptions.CorruptChecksumException;
+import gov.loc.repository.bagit.hash.SupportedAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.engine.ChecksumProgress;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Verifies the checksums in the payload and tag manifests of a bag. Unlike the verifier of bagit-java it reads every file only once, even if it is listed in
+ * several manifests, and it skips the files for which the digest was already computed, e.g. while extracting the ZIP file the bag came in.
+ */
+@Slf4j
+public class ChecksumVerifier {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExecutorService executor;
+    private final DiskReadScheduler diskReadScheduler;
+
+    public ChecksumVerifier(ExecutorService executor) {
+        this(executor, DiskReadScheduler.unbounded());
+    }
+
+    public ChecksumVerifier(ExecutorService executor, DiskReadScheduler diskReadScheduler) {
+        this.executor = executor;
+        this.diskReadScheduler = diskReadScheduler;
+    }
+
+    public void verify(Bag bag) throws IOException, CorruptChecksumException, InterruptedException {
+        // the context is bound to this thread, so it must be captured before the work is handed to the pool
+        var context = ValidationContext.current();
+        var expected = getExpectedChecksums(bag, context);
+        var progress = new Progress(context.getListener(), expected.keySet());
+        // all files of a bag are assumed to be on the same file store
+        var lane = diskReadScheduler.getLane(bag.getRootDir());
+        var futures = new ArrayList<Future<?>>();
+
+        try {
+            for (var entry : expected.entrySet()) {
+                context.checkCancelled();
+                // wait for the file store here rather than on a thread of the pool, which is shared with validations of bags on other file stores
+                var reader = needsRead(entry.getKey(), entry.getValue().keySet(), context) ? lane.acquire(entry.getKey()) : null;
+
+                var task = new FutureTask<Void>(() -> {
+                    try (reader) {
+                        context.checkCancelled();
+                        verifyFile(entry.getKey(), entry.getValue(), context, progress, reader);
+                    }
+                    return null;
+                }) {
+                    @Override
+                    protected void done() {
+                        // a task that is cancelled before it runs must still give up its turn to read
+                        if (isCancelled() && reader != null) {
+                            reader.close();
+                        }
+                    }
+                };
+
+                try {
+                    executor.execute(task);
+                    futures.add(task);
+                }
+                catch (RuntimeException e) {
+                    if (reader != null) {
+                        reader.close();
+                    }
+                    throw e;
+                }
+            }
+
+            for (var future : futures) {
+                future.get();
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            var cause = e.getCause();
+
+            if (cause instanceof CorruptChecksumException) {
+                throw (CorruptChecksumException) cause;
+            }
+            else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Checksum verification failed", cause);
+        }
+
+        progress.report(true);
+        log.debug("Verified the checksums of {} files", expected.size());
+    }
+
+    private Map<Path, Map<SupportedAlgorithm, String>> getExpectedChecksums(Bag bag, ValidationContext context) {
+        var expected = new LinkedHashMap<Path, Map<SupportedAlgorithm, String>>();
+        var payloadManifests = context.getProfile().isPayloadChecksumsVerified() ? bag.getPayLoadManifests().stream() : Stream.<Manifest> empty();
+
+        Stream.concat(payloadManifests, bag.getTagManifests().stream()).forEach((Manifest manifest) -> {
+            for (var entry : manifest.getFileToChecksumMap().entrySet()) {
+                expected.computeIfAbsent(entry.getKey(), k -> new LinkedHashMap<>()).put(manifest.getAlgorithm(), entry.getValue());
+            }
+        });
+
+        return expected;
+    }
+
+    private static boolean needsRead(Path file, Collection<SupportedAlgorithm> algorithms, ValidationContext context) {
+        return algorithms.stream().anyMatch(a -> context.getPrecomputedDigests().get(file, a.getBagitName()).isEmpty());
+    }
+
+    private void verifyFile(Path file, Map<SupportedAlgorithm, String> expected, ValidationContext context, Progress progress, DiskReadScheduler.Reader reader)
+        throws IOException, CorruptChecksumException {
+        var precomputed = context.getPrecomputedDigests();
+        var computed = new LinkedHashMap<SupportedAlgorithm, String>();
+        var toCompute = new ArrayList<SupportedAlgorithm>();
+
+        for (var algorithm : expected.keySet()) {
+            precomputed.get(file, algorithm.getBagitName()).ifPresentOrElse(d -> computed.put(algorithm, d), () -> toCompute.add(algorithm));
+        }
+
+        if (!toCompute.isEmpty()) {
+            computed.putAll(computeDigests(file, toCompute, context, progress, reader));
+        }
+        else {
+            progress.addBytes(progress.getSize(file));
+        }
+
+        progress.fileDone();
+
+        for (var entry : expected.entrySet()) {
+            var actual = computed.get(entry.getKey());
+
+            if (!entry.getValue().equalsIgnoreCase(actual)) {
+                throw new CorruptChecksumException(String.format("File [%s] is suppose to have a [%s] value of [%s] but computed [%s]",
+                    file, entry.getKey().getMessageDigestName(), entry.getValue(), actual));
+            }
+        }
+
+        for (var entry : computed.entrySet()) {
+            context.getVerifiedDigests().put(file, entry.getKey().getBagitName(), entry.getValue());
+        }
+    }
+
+    private Map<SupportedAlgorithm, String> computeDigests(Path file, List<SupportedAlgorithm> algorithms, ValidationContext context, Progress progress,
+        DiskReadScheduler.Reader reader) throws IOException {
+        var messageDigests = new ArrayList<MessageDigest>();
+
+        for (var algorithm : algorithms) {
+            try {
+                messageDigests.add(MessageDigest.getInstance(algorithm.getMessageDigestName()));
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorithm supported by BagIt but not by the JVM: " + algorithm.getMessageDigestName(), e);
+            }
+        }
+
+        try (var input = Files.newInputStream(file)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+
+            while ((bytesRead = input.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Checksum computation of " + file + " was interrupted");
+                }
+
+                context.checkCancelled();
+
+                for (var digest : messageDigests) {
+                    digest.update(buffer, 0, bytesRead);
+                }
+
+                // per block, so that the running validations show the progress within a large file
+                context.addBytesRead(bytesRead);
+                progress.addBytes(bytesRead);
+                reader.read(bytesRead);
+            }
+        }
+
+        context.addFilesHashed(1);
+
+        var result = new LinkedHashMap<SupportedAlgorithm, String>();
+
+        for (var i = 0; i < algorithms.size(); ++i) {
+            result.put(algorithms.get(i), HexFormat.of().formatHex(messageDigests.get(i).digest()));
+        }
+
+        return result;
+    }
+
+    // reports to the listener at most once per REPORT_INTERVAL, from whichever thread happens to be hashing at that moment
+    private static class Progress {
+        private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final ValidationListener listener;
+        private final boolean enabled;
+        private final long filesTotal;
+        private final long bytesTotal;
+        private final LongAdder filesHashed = new LongAdder();
+        private final LongAdder bytesHashed = new LongAdder();
+        private final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+
+        Progress(ValidationListener listener, Collection<Path> files) {
+            this.listener = listener;
+            // without a listener the sizes are not needed, so the files are not stat-ed
+            this.enabled = listener != ValidationListener.NONE;
+            this.filesTotal = files.size();
+            this.bytesTotal = enabled ? files.stream().mapToLong(this::getSize).sum() : 0;
+        }
+
+        long getSize(Path file) {
+            if (!enabled) {
+                return 0;
+            }
+
+            try {
+                return Files.size(file);
+            }
+            catch (IOException e) {
+                // a missing file is reported by the verification itself
+                return 0;
+            }
+        }
+
+        void addBytes(long bytes) {
+            if (enabled) {
+                bytesHashed.add(bytes);
+                report(false);
+            }
+        }
+
+        void fileDone() {
+            filesHashed.increment();
+        }
+
+        void report(boolean force) {
+            if (!enabled) {
+                return;
+            }
+
+            var now = System.nanoTime();
+            var last = lastReport.get();
+
+            if (force || (now - last >= REPORT_INTERVAL_NANOS && lastReport.compareAndSet(last, now))) {
+                listener.checksumProgress(new ChecksumProgress(filesHashed.sum(), filesTotal, bytesHashed.sum(), bytesTotal));
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import nl.knaw.dans.lib.dataverse.model.dataset.DatasetLatestVersion;
 import nl.knaw.dans.lib.dataverse.model.license.License;
 import nl.knaw.dans.lib.dataverse.model.search.SearchItemType;
 import nl.knaw.dans.lib.dataverse.model.search.SearchResult;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +50,7 @@ public class DataverseServiceImpl implements DataverseService {
         options.setTypes(List.of(SearchItemType.dataset));
 
         log.debug("Searching dataverse with query {}", query);
+        ValidationContext.current().countRemoteCall();
 
         return dataverseClient.search().find(query);
     }
@@ -68,18 +70,21 @@ public class DataverseServiceImpl implements DataverseService {
     @Override
     public DataverseResponse<List<RoleAssignmentReadOnly>> getDatasetRoleAssignments(String identifier) throws IOException, DataverseException {
         log.debug("Getting dataset role assigmnents from dataverse for dataset {}", identifier);
+        ValidationContext.current().countRemoteCall();
         return dataverseClient.dataset(identifier).listRoleAssignments();
     }
 
     @Override
     public DataverseResponse<DatasetLatestVersion> getDataset(String globalId) throws IOException, DataverseException {
         log.debug("Getting dataset from dataverse with id {}", globalId);
+        ValidationContext.current().countRemoteCall();
         return dataverseClient.dataset(globalId).getLatestVersion();
     }
 
     @Override
     public DataverseResponse<List<RoleAssignmentReadOnly>> getDataverseRoleAssignments(String itemId) throws IOException, DataverseException {
         log.debug("Getting dataset role assignments from dataverse for dataset with id {}", itemId);
+        ValidationContext.current().countRemoteCall();
         return dataverseClient.dataverse("root").listRoleAssignments();
     }
 
@@ -91,12 +96,14 @@ public class DataverseServiceImpl implements DataverseService {
 
     public DataverseResponse<DataMessage> getMaxEmbargoDurationInMonths() throws IOException, DataverseException {
         var client = this.getDataverseClient();
+        ValidationContext.current().countRemoteCall();
         return client.admin().getDatabaseSetting(":MaxEmbargoDurationInMonths");
     }
 
     @Override
     public List<License> getLicenses() throws IOException, DataverseException {
         var client = this.getDataverseClient();
+        ValidationContext.current().countRemoteCall();
         return client.license().getLicenses().getData();
     }
 }
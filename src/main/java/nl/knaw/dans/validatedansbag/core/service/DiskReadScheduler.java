@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules the reads of files whose checksums are verified, per file store (file system or mount point). Optionally, only a limited number of files on the
+ * same file store are read at the same time, so that validations of several bags do not make the disk seek back and forth between them. Waiting files go in
+ * order of arrival, but larger files get a head start, because they are read sequentially for the longest time; the head start is bounded, so small files
+ * are not starved. Optionally, the number of bytes read per second from a file store is limited.
+ * <p>
+ * A read should be acquired before the work is handed to a shared thread pool, so that the threads of the pool never wait for a file store.
+ */
+@Slf4j
+public class DiskReadScheduler {
+    private final int maxReadersPerFileStore;
+    private final long maxBytesPerSecond;
+    private final Map<FileStore, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxReadersPerFileStore number of files on the same file store that are read at the same time; 0 for no limit
+     * @param maxBytesPerSecond      maximum number of bytes read per second from a file store; 0 for no limit
+     */
+    public DiskReadScheduler(int maxReadersPerFileStore, long maxBytesPerSecond) {
+        this.maxReadersPerFileStore = maxReadersPerFileStore <= 0 ? Integer.MAX_VALUE : maxReadersPerFileStore;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    public static DiskReadScheduler unbounded() {
+        return new DiskReadScheduler(0, 0);
+    }
+
+    /**
+     * Returns the lane of the file store that contains the path. Looking up the file store is not cheap, so do it once per bag rather than per file.
+     */
+    public Lane getLane(Path path) throws IOException {
+        var fileStore = Files.getFileStore(path);
+        return lanes.computeIfAbsent(fileStore, fs -> {
+            log.debug("Scheduling reads from {} with at most {} readers", fs, maxReadersPerFileStore);
+            return new Lane(maxReadersPerFileStore, maxBytesPerSecond);
+        });
+    }
+
+    public static class Lane {
+        // the head start per size band, e.g. a file of 1 GiB (band 8) goes ahead of an empty file that arrived up to 0.4 s earlier
+        private static final long HEAD_START_PER_BAND_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+        private final int maxReaders;
+        private final long maxBytesPerSecond;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final PriorityQueue<Waiter> waiting = new PriorityQueue<>((a, b) -> a.getDue() != b.getDue()
+            ? Long.compare(a.getDue() - b.getDue(), 0)
+            : Long.compare(a.getSequenceNumber(), b.getSequenceNumber()));
+        private long sequenceNumber;
+        private int readers;
+        // the time at which the bytes read so far are within the rate limit
+        private long nextFreeNanos = System.nanoTime();
+
+        Lane(int maxReaders, long maxBytesPerSecond) {
+            this.maxReaders = maxReaders;
+            this.maxBytesPerSecond = maxBytesPerSecond;
+        }
+
+        /**
+         * Waits until the file may be read. The size of the file is only looked up if it has to wait.
+         */
+        public Reader acquire(Path file) throws IOException {
+            lock.lock();
+            try {
+                if (readers < maxReaders && waiting.isEmpty()) {
+                    readers++;
+                    return new Reader(this, file);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+
+            return acquire(file, Files.size(file));
+        }
+
+        /**
+         * Waits until the file may be read.
+         *
+         * @param file the file, for error messages
+         * @param size the size of the file, which determines its head start
+         */
+        public Reader acquire(Path file, long size) throws InterruptedIOException {
+            lock.lock();
+            try {
+                var waiter = new Waiter(System.nanoTime() - sizeBand(size) * HEAD_START_PER_BAND_NANOS, sequenceNumber++);
+                waiting.add(waiter);
+
+                try {
+                    while (readers >= maxReaders || waiting.peek() != waiter) {
+                        changed.await();
+                    }
+                }
+                catch (InterruptedException e) {
+                    waiting.remove(waiter);
+                    // another waiter may be first in line now
+                    changed.signalAll();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to read " + file);
+                }
+
+                waiting.poll();
+                readers++;
+                // the next waiter may fit as well
+                changed.signalAll();
+                return new Reader(this, file);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        // 0 for an empty file, then one band per factor of 16
+        private static int sizeBand(long size) {
+            return (Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, size)) + 3) / 4;
+        }
+
+        private void release() {
+            lock.lock();
+            try {
+                readers--;
+                changed.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        private void throttle(Path file, long bytes) throws InterruptedIOException {
+            if (maxBytesPerSecond <= 0) {
+                return;
+            }
+
+            long delayNanos;
+            lock.lock();
+            try {
+                var now = System.nanoTime();
+                var start = Math.max(now, nextFreeNanos);
+                nextFreeNanos = start + bytes * TimeUnit.SECONDS.toNanos(1) / maxBytesPerSecond;
+                delayNanos = start - now;
+            }
+            finally {
+                lock.unlock();
+            }
+
+            if (delayNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Permission to read one file. Report every block read with {@link #read(long)}, and close it when done.
+     */
+    public static class Reader implements AutoCloseable {
+        private final Lane lane;
+        private final Path file;
+        // closed by the thread that read the file, or by the one that cancelled the read before it started
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reader(Lane lane, Path file) {
+            this.lane = lane;
+            this.file = file;
+        }
+
+        /**
+         * Waits as long as the rate limit of the file store requires after reading the given number of bytes.
+         */
+        public void read(long bytes) throws InterruptedIOException {
+            lane.throttle(file, bytes);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                lane.release();
+            }
+        }
+    }
+
+    @Value
+    private static class Waiter {
+        // the System.nanoTime() at which the waiter is first in line, if no one else is waiting
+        long due;
+        long sequenceNumber;
+    }
+}
@@ -35,12 +35,19 @@ public interface FileService {
 
     byte[] readFileContents(Path path) throws IOException;
 
+    InputStream newInputStream(Path path) throws IOException;
+
     boolean exists(Path path);
     boolean isReadable(Path path);
 
     CharBuffer readFileContents(Path path, Charset charset) throws IOException;
 
-    Path extractZipFile(InputStream inputStream) throws IOException;
+    /**
+     * Checks that the file is valid UTF-8, without loading it into memory.
+     *
+     * @return the first invalid byte sequence, or empty if the file is valid UTF-8
+     */
+    Optional<Utf8Validator.InvalidSequence> findInvalidUtf8(Path path) throws IOException;
 
     Optional<Path> getFirstDirectory(Path path) throws IOException;
 
@@ -15,34 +15,28 @@
  */
 package nl.knaw.dans.validatedansbag.core.service;
 
-import org.apache.commons.io.FileUtils;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.zip.ZipInputStream;
 
 public class FileServiceImpl implements FileService {
     private final Path baseFolder;
-    private final Path tempFolder;
+    private final Utf8Validator utf8Validator = new Utf8Validator(true);
 
     public FileServiceImpl(Path baseFolder) {
         this.baseFolder = baseFolder.normalize().toAbsolutePath();
-
-        try {
-            this.tempFolder = Files.createDirectories(this.baseFolder.resolve("temp"));
-        }
-        catch (IOException e) {
-            throw new RuntimeException("Could not create temp directory", e);
-        }
     }
 
     @Override
@@ -57,21 +51,56 @@ public class FileServiceImpl implements FileService {
 
     @Override
     public List<Path> getAllFiles(Path path) throws IOException {
+        var context = ValidationContext.current();
+
         try (var stream = Files.walk(path)) {
-            return stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            return stream.peek(p -> context.checkCancelled()).filter(Files::isRegularFile).collect(Collectors.toList());
         }
     }
 
     @Override
     public List<Path> getAllFilesAndDirectories(Path path) throws IOException {
+        var context = ValidationContext.current();
+
         try (var stream = Files.walk(path)) {
-            return stream.collect(Collectors.toList());
+            return stream.peek(p -> context.checkCancelled()).collect(Collectors.toList());
         }
     }
 
     @Override
     public byte[] readFileContents(Path path) throws IOException {
-        return Files.readAllBytes(path);
+        var contents = Files.readAllBytes(path);
+        ValidationContext.current().addBytesRead(contents.length);
+        return contents;
+    }
+
+    @Override
+    public InputStream newInputStream(Path path) throws IOException {
+        var context = ValidationContext.current();
+
+        return new FilterInputStream(Files.newInputStream(path)) {
+            @Override
+            public int read() throws IOException {
+                var b = super.read();
+
+                if (b != -1) {
+                    context.addBytesRead(1);
+                }
+
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                var n = super.read(b, off, len);
+
+                if (n > 0) {
+                    context.addBytesRead(n);
+                }
+
+                return n;
+            }
+        };
     }
 
     @Override
@@ -91,28 +120,12 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    public Path extractZipFile(InputStream inputStream) throws IOException {
-        var tempPath = Files.createTempDirectory(this.tempFolder, "bag-");
-
-        try (var input = new ZipInputStream(inputStream)) {
-            var entry = input.getNextEntry();
-
-            while (entry != null) {
-                var targetPath = tempPath.resolve(entry.getName());
-                Path securePath = getSecurePath(targetPath);
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(securePath);
-                }
-                else {
-                    writeStreamToFile(input, securePath);
-                }
-
-                entry = input.getNextEntry();
-            }
+    public Optional<Utf8Validator.InvalidSequence> findInvalidUtf8(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var result = utf8Validator.findInvalidSequence(channel);
+            ValidationContext.current().addBytesRead(result.map(Utf8Validator.InvalidSequence::getOffset).orElse(channel.size()));
+            return result;
         }
-
-        return tempPath;
     }
 
     @Override
@@ -130,17 +143,4 @@ public class FileServiceImpl implements FileService {
         }
         return normalizedPath;
     }
-
-    void writeStreamToFile(InputStream inputStream, Path target) throws IOException {
-        FileUtils.forceMkdirParent(target.toFile());
-        try (var output = new FileOutputStream(target.toFile())) {
-            byte[] buf = new byte[8 * 1024];
-            var bytesRead = 0;
-
-            while ((bytesRead = inputStream.read(buf)) != -1) {
-                output.write(buf, 0, bytesRead);
-            }
-        }
-
-    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsService.OriginalFilePathItem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The contents of original-filepaths.txt, indexed by original path. Each line contains the path of a file in the bag, whitespace, and the path the file
+ * originally had; lines without both are ignored.
+ */
+public class OriginalFilepaths {
+    public static final OriginalFilepaths EMPTY = new OriginalFilepaths(List.of());
+
+    private final List<OriginalFilePathItem> items;
+    private final Map<Path, Path> originalToRenamed;
+
+    private OriginalFilepaths(List<OriginalFilePathItem> items) {
+        this.items = Collections.unmodifiableList(items);
+        var originalToRenamed = new HashMap<Path, Path>(items.size() * 4 / 3 + 1);
+
+        for (var item : items) {
+            originalToRenamed.put(item.getOriginalFilename(), item.getRenamedFilename());
+        }
+
+        this.originalToRenamed = Collections.unmodifiableMap(originalToRenamed);
+    }
+
+    /**
+     * Reads the UTF-8 encoded file line by line.
+     */
+    public static OriginalFilepaths read(InputStream input) throws IOException {
+        var items = new ArrayList<OriginalFilePathItem>();
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            parseLine(line).ifPresent(items::add);
+        }
+
+        return new OriginalFilepaths(items);
+    }
+
+    static Optional<OriginalFilePathItem> parseLine(String line) {
+        var length = line.length();
+        var start = 0;
+
+        while (start < length && Whitespace.isRegexWhitespace(line.charAt(start))) {
+            ++start;
+        }
+
+        var end = start;
+
+        while (end < length && !Whitespace.isRegexWhitespace(line.charAt(end))) {
+            ++end;
+        }
+
+        var original = end;
+
+        while (original < length && Whitespace.isRegexWhitespace(line.charAt(original))) {
+            ++original;
+        }
+
+        if (start == end || original == length || original == end) {
+            return Optional.empty();
+        }
+
+        // the original path may contain whitespace
+        return Optional.of(new OriginalFilePathItem(Path.of(line.substring(original)), Path.of(line.substring(start, end))));
+    }
+
+    public List<OriginalFilePathItem> getItems() {
+        return items;
+    }
+
+    public Map<Path, Path> getOriginalToRenamed() {
+        return originalToRenamed;
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
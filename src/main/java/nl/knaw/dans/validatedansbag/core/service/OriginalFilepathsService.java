@@ -22,6 +22,11 @@ import java.util.Objects;
 
 public interface OriginalFilepathsService {
 
+    /**
+     * Returns the contents of original-filepaths.txt in the bag, or an empty mapping if it cannot be read.
+     */
+    OriginalFilepaths getOriginalFilepaths(Path bagDir);
+
     List<OriginalFilePathItem> getMapping(Path bagDir);
 
     Map<Path, Path> getMappingsFromOriginalToRenamed(Path bagDir);
@@ -15,16 +15,14 @@
  */
 package nl.knaw.dans.validatedansbag.core.service;
 
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class OriginalFilepathsServiceImpl implements OriginalFilepathsService {
 
@@ -38,20 +36,18 @@ public class OriginalFilepathsServiceImpl implements OriginalFilepathsService {
     }
 
     @Override
-    public List<OriginalFilePathItem> getMapping(Path bagDir) {
+    public OriginalFilepaths getOriginalFilepaths(Path bagDir) {
         var file = bagDir.resolve(filename);
+        // several rules need the mapping, so it is read only once per validation
+        return ValidationContext.current().computeIfAbsent("original-filepaths:" + file.toAbsolutePath().normalize(), k -> read(file));
+    }
 
-        try {
-            var bytes = fileService.readFileContents(file);
-            var content = new String(bytes);
-
-            // the mapping between files on disk and what they used to be called
-            return Arrays.stream(content.split("\n"))
-                .filter(s -> !s.isBlank())
-                .map(s -> s.split("\\s+", 2))
-                .filter(p -> p.length == 2)
-                .map(p -> new OriginalFilePathItem(Path.of(p[1]), Path.of(p[0])))
-                .collect(Collectors.toList());
+    private OriginalFilepaths read(Path file) {
+        // the mapping between files on disk and what they used to be called
+        try (var input = fileService.newInputStream(file)) {
+            var originalFilepaths = OriginalFilepaths.read(input);
+            log.debug("Read {} mappings from {}", originalFilepaths.size(), file);
+            return originalFilepaths;
         }
         catch (NoSuchFileException e) {
             log.debug("File {} not found", file);
@@ -60,19 +56,17 @@ public class OriginalFilepathsServiceImpl implements OriginalFilepathsService {
             log.error("Error while reading {}", file, e);
         }
 
-        return List.of();
+        return OriginalFilepaths.EMPTY;
     }
 
     @Override
-    public Map<Path, Path> getMappingsFromOriginalToRenamed(Path bagDir) {
-        var mappings = getMapping(bagDir);
-        var result = new HashMap<Path, Path>();
-
-        for (var m : mappings) {
-            result.put(m.getOriginalFilename(), m.getRenamedFilename());
-        }
+    public List<OriginalFilePathItem> getMapping(Path bagDir) {
+        return getOriginalFilepaths(bagDir).getItems();
+    }
 
-        return result;
+    @Override
+    public Map<Path, Path> getMappingsFromOriginalToRenamed(Path bagDir) {
+        return getOriginalFilepaths(bagDir).getOriginalToRenamed();
     }
 
     @Override
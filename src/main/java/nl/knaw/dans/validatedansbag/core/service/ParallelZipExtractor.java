@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import gov.loc.repository.bagit.hash.StandardSupportedAlgorithms;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.ScratchSpaceExhaustedException;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts a ZIP file using its central directory, so that the entries can be inflated on several threads at once. While extracting, every file is hashed with
+ * the algorithms of the manifests found in the ZIP, so that the checksums can be verified without reading the files again. If the validation profile does not
+ * verify payload checksums, only the tag files are hashed, with the algorithms of the tag manifests.
+ * <p>
+ * Before anything is extracted, the entries are compared with the payload manifests. If they do not match, the bag cannot be valid: then only the files
+ * outside the data directory are extracted, without hashing them, and the problems are returned, so that rule 1.1.1 can report them right away.
+ */
+@Slf4j
+public class ParallelZipExtractor {
+    private static final Pattern MANIFEST_NAME = Pattern.compile("^(?:tag)?manifest-([a-z0-9]+)\\.txt$");
+    private static final Pattern TAG_MANIFEST_NAME = Pattern.compile("^tagmanifest-([a-z0-9]+)\\.txt$");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExecutorService executor;
+    private final FileService fileService;
+    private final ZipManifestPreCheck preCheck = new ZipManifestPreCheck();
+
+    @FunctionalInterface
+    public interface ByteReservation {
+        // a negative count returns bytes that were reserved earlier
+        void reserve(long bytes) throws ScratchSpaceExhaustedException;
+    }
+
+    @Value
+    public static class Result {
+        FileDigests digests;
+        // files missing from the ZIP file or from a payload manifest; if not empty, the payload was not extracted
+        List<String> incompleteBagProblems;
+    }
+
+    public ParallelZipExtractor(ExecutorService executor, FileService fileService) {
+        this.executor = executor;
+        this.fileService = fileService;
+    }
+
+    public Result extract(Path zipFile, Path targetDir, ValidationProfile profile, ByteReservation reservation) throws IOException,
+        ScratchSpaceExhaustedException {
+        var digests = new FileDigests();
+        List<String> problems;
+
+        try (var zip = new ZipFile(zipFile.toFile())) {
+            var entries = Collections.list(zip.entries());
+            problems = preCheck.check(zip, entries);
+            var complete = problems.isEmpty();
+            // rule 1.1.1 stops at an incomplete bag before it verifies any checksum, so then the digests would not be used
+            var algorithms = complete
+                ? getManifestAlgorithms(entries, profile.isPayloadChecksumsVerified() ? MANIFEST_NAME : TAG_MANIFEST_NAME)
+                : Map.<String, String> of();
+
+            var files = new ArrayList<ZipEntry>();
+
+            for (var entry : entries) {
+                if (entry.isDirectory()) {
+                    Files.createDirectories(getSecurePath(targetDir, entry));
+                }
+                // the payload of an incomplete bag is not needed to report it
+                else if (complete || !isPayloadEntry(entry)) {
+                    files.add(entry);
+                }
+            }
+
+            // fail before extracting any file if the declared sizes do not fit
+            reservation.reserve(files.stream().mapToLong(e -> Math.max(0, e.getSize())).sum());
+
+            // start with the largest entries, so that the threads finish at about the same time
+            files.sort(Comparator.comparingLong(ZipEntry::getSize).reversed());
+
+            var futures = new ArrayList<Future<?>>();
+
+            for (var entry : files) {
+                // the digests of payload files are only used to verify payload checksums
+                var entryAlgorithms = profile.isPayloadChecksumsVerified() || !isPayloadEntry(entry) ? algorithms : Map.<String, String> of();
+
+                futures.add(executor.submit(() -> {
+                    extractEntry(zip, entry, getSecurePath(targetDir, entry), entryAlgorithms, digests, reservation);
+                    return null;
+                }));
+            }
+
+            awaitAll(futures);
+            log.debug("Extracted {} files from {} on multiple threads, computed digests {}", files.size(), zipFile, algorithms.keySet());
+        }
+
+        return new Result(digests, problems);
+    }
+
+    private Path getSecurePath(Path targetDir, ZipEntry entry) {
+        var path = fileService.getSecurePath(targetDir.resolve(entry.getName()));
+
+        if (!path.startsWith(targetDir.toAbsolutePath().normalize())) {
+            throw new IllegalArgumentException(String.format("Insecure Path %s", path));
+        }
+
+        return path;
+    }
+
+    // BagIt name -> JCA name, for the algorithms of the manifests in the ZIP whose names match the pattern
+    private Map<String, String> getManifestAlgorithms(List<? extends ZipEntry> entries, Pattern manifestName) {
+        var algorithms = new LinkedHashMap<String, String>();
+
+        for (var entry : entries) {
+            var name = Path.of(entry.getName()).getFileName();
+            var matcher = manifestName.matcher(name == null ? "" : name.toString());
+
+            if (matcher.matches()) {
+                Arrays.stream(StandardSupportedAlgorithms.values())
+                    .filter(a -> a.getBagitName().equals(matcher.group(1)))
+                    .findFirst()
+                    .ifPresent(a -> algorithms.put(a.getBagitName(), a.getMessageDigestName()));
+            }
+        }
+
+        return algorithms;
+    }
+
+    // an entry in the data directory of the bag, e.g. "bag/data/file.txt"
+    private static boolean isPayloadEntry(ZipEntry entry) {
+        var name = entry.getName();
+        var bagEnd = name.indexOf('/');
+        return bagEnd > 0 && name.startsWith("data/", bagEnd + 1);
+    }
+
+    private void extractEntry(ZipFile zip, ZipEntry entry, Path target, Map<String, String> algorithms, FileDigests digests, ByteReservation reservation)
+        throws IOException, ScratchSpaceExhaustedException {
+        var messageDigests = createMessageDigests(algorithms.values());
+        var crc = new CRC32();
+        var declared = Math.max(0, entry.getSize());
+        var written = 0L;
+
+        Files.createDirectories(target.getParent());
+
+        try (var input = zip.getInputStream(entry); var output = new RandomAccessFile(target.toFile(), "rw")) {
+            // preallocate, so that concurrent writers do not fragment the files
+            output.setLength(declared);
+            var buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+
+            while ((bytesRead = input.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Extraction of " + entry.getName() + " was interrupted");
+                }
+
+                if (written + bytesRead > declared) {
+                    // the entry is larger than its header claims
+                    reservation.reserve(written + bytesRead - Math.max(declared, written));
+                }
+
+                output.write(buffer, 0, bytesRead);
+
+                crc.update(buffer, 0, bytesRead);
+
+                for (var digest : messageDigests) {
+                    digest.update(buffer, 0, bytesRead);
+                }
+
+                written += bytesRead;
+            }
+
+            if (written < declared) {
+                output.setLength(written);
+                reservation.reserve(written - declared);
+            }
+        }
+
+        // ZipFile does not check the CRC-32 of an entry, but it is free to compare it here
+        if (entry.getCrc() != -1 && entry.getCrc() != crc.getValue()) {
+            throw new ZipException(String.format("CRC-32 of %s is %08x but the ZIP file records %08x", entry.getName(), crc.getValue(), entry.getCrc()));
+        }
+
+        var i = 0;
+        for (var algorithm : algorithms.keySet()) {
+            digests.put(target, algorithm, HexFormat.of().formatHex(messageDigests.get(i++).digest()));
+        }
+    }
+
+    private static List<MessageDigest> createMessageDigests(Iterable<String> names) {
+        var messageDigests = new ArrayList<MessageDigest>();
+
+        for (var name : names) {
+            try {
+                messageDigests.add(MessageDigest.getInstance(name));
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorithm supported by BagIt but not by the JVM: " + name, e);
+            }
+        }
+
+        return messageDigests;
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws IOException, ScratchSpaceExhaustedException {
+        try {
+            for (var future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting ZIP file");
+        }
+        catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            var cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof ScratchSpaceExhaustedException) {
+                throw (ScratchSpaceExhaustedException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Extraction failed", cause);
+        }
+    }
+}
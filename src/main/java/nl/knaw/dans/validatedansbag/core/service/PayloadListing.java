@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import gov.loc.repository.bagit.domain.Manifest;
+import lombok.Value;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The files in the payload directory of a bag, joined with its manifests. It is built in a single pass over the payload directory; rule 1.1.1 reports its
+ * problems, and the rules that compare the payload with files.xml and original-filepaths.txt use its files instead of walking the directory again.
+ */
+@Value
+public class PayloadListing {
+    private static final int MAX_REPORTED_FILES = 10;
+
+    // paths relative to the bag directory of the regular files in the payload directory
+    Set<Path> files;
+    // files that are listed in a manifest but do not exist, and payload files that are not listed in every payload manifest
+    List<String> problems;
+
+    public boolean isComplete() {
+        return problems.isEmpty();
+    }
+
+    public static PayloadListing build(Path bagDir, Collection<Manifest> payloadManifests, Collection<Manifest> tagManifests) throws IOException {
+        var context = ValidationContext.current();
+        var root = bagDir.toAbsolutePath().normalize();
+        var dataDir = root.resolve("data");
+        Set<Path> files;
+
+        // hidden files are part of the payload, as in BagVerifier.isComplete(bag, false)
+        try (var stream = Files.walk(dataDir)) {
+            files = stream
+                .peek(p -> context.checkCancelled())
+                .filter(Files::isRegularFile)
+                .map(root::relativize)
+                .collect(Collectors.toSet());
+        }
+
+        var problems = new ArrayList<String>();
+
+        for (var manifest : payloadManifests) {
+            var listed = getListedFiles(root, manifest);
+            var manifestName = getManifestName("manifest", manifest);
+
+            report(problems, listed.stream().filter(p -> !files.contains(p)), "listed in %s but not present in the bag", manifestName);
+            report(problems, files.stream().filter(p -> !listed.contains(p)), "present in the payload directory but not listed in %s", manifestName);
+        }
+
+        for (var manifest : tagManifests) {
+            var manifestName = getManifestName("tagmanifest", manifest);
+            report(problems, getListedFiles(root, manifest).stream().filter(p -> !Files.exists(root.resolve(p))), "listed in %s but not present in the bag",
+                manifestName);
+        }
+
+        return new PayloadListing(files, problems);
+    }
+
+    private static Set<Path> getListedFiles(Path root, Manifest manifest) {
+        // bagit-java resolves the paths in the manifest against the bag directory
+        return manifest.getFileToChecksumMap().keySet().stream()
+            .map(p -> root.relativize(p.toAbsolutePath().normalize()))
+            .collect(Collectors.toSet());
+    }
+
+    private static String getManifestName(String prefix, Manifest manifest) {
+        return String.format("%s-%s.txt", prefix, manifest.getAlgorithm().getBagitName());
+    }
+
+    private static void report(List<String> problems, Stream<Path> paths, String what, String manifestName) {
+        var sorted = paths.map(Path::toString).collect(Collectors.toCollection(TreeSet::new));
+
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        var listed = sorted.stream().limit(MAX_REPORTED_FILES).collect(Collectors.joining(", "));
+        var more = sorted.size() > MAX_REPORTED_FILES ? String.format(" and %d more", sorted.size() - MAX_REPORTED_FILES) : "";
+        problems.add(String.format("%d file(s) %s: %s%s", sorted.size(), String.format(what, manifestName), listed, more));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Remembers the digests that were verified in a bag on disk, so that a bag that is submitted again only has its changed files rehashed. A file counts as
+ * unchanged if its size, modification time and file key (the inode on Unix) are the same as when it was verified.
+ */
+public interface RevalidationCache {
+
+    RevalidationCache DISABLED = bagDir -> new Session() {
+        @Override
+        public FileDigests getDigests() {
+            return new FileDigests();
+        }
+
+        @Override
+        public void save(FileDigests verifiedDigests) {
+        }
+    };
+
+    /**
+     * Looks up the digests of the bag. A file is fingerprinted when its digests are first asked for, and only the digests of files that did not change since
+     * the previous validation are returned.
+     */
+    Session open(Path bagDir) throws IOException;
+
+    interface Session {
+        /**
+         * The cached digests of the files that did not change.
+         */
+        FileDigests getDigests();
+
+        /**
+         * Stores the digests verified in this validation, for the files that did not change while it ran.
+         */
+        void save(FileDigests verifiedDigests);
+    }
+}
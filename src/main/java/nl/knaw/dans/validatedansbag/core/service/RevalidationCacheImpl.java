@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.lifecycle.Managed;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.config.RevalidationCacheConfig;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RevalidationCache} that keeps one JSON file per bag path in a directory under the base folder. Entries that were not saved for the maximum age are
+ * removed at startup and every sweep interval; if there are more than the maximum number of entries, the least recently saved ones are removed as well.
+ */
+@Slf4j
+public class RevalidationCacheImpl implements RevalidationCache, Managed {
+    // a file modified this recently may still change within the same timestamp, so its digest is not cached
+    private static final Duration RACY_INTERVAL = Duration.ofSeconds(2);
+
+    private final Path root;
+    private final Duration maxAge;
+    private final int maxEntries;
+    private final Duration sweepInterval;
+    private final ObjectMapper objectMapper;
+    private ScheduledExecutorService sweeper;
+
+    public RevalidationCacheImpl(Path root, RevalidationCacheConfig config, ObjectMapper objectMapper) {
+        this.root = root.normalize().toAbsolutePath();
+        this.maxAge = config.getMaxAge().toJavaDuration();
+        this.maxEntries = config.getMaxEntries();
+        this.sweepInterval = config.getSweepInterval().toJavaDuration();
+        this.objectMapper = objectMapper;
+
+        try {
+            Files.createDirectories(this.root);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not create revalidation cache directory", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        log.info("Removed {} entries from revalidation cache {}", sweep(), root);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "revalidation-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Removes the entries that are older than the maximum age, and then the least recently saved entries over the maximum number.
+     *
+     * @return the number of entries removed
+     */
+    public int sweep() {
+        var threshold = Instant.now().minus(maxAge);
+        var kept = new ArrayList<Map.Entry<Path, Instant>>();
+        var deleted = 0;
+
+        try {
+            try (var entries = Files.list(root)) {
+                for (var entry : (Iterable<Path>) entries::iterator) {
+                    Instant lastModified;
+
+                    try {
+                        lastModified = Files.getLastModifiedTime(entry).toInstant();
+                    }
+                    catch (NoSuchFileException e) {
+                        // a temporary file of an entry that was saved in the meantime
+                        continue;
+                    }
+
+                    if (lastModified.isBefore(threshold)) {
+                        Files.deleteIfExists(entry);
+                        deleted++;
+                    }
+                    else {
+                        kept.add(Map.entry(entry, lastModified));
+                    }
+                }
+            }
+
+            if (kept.size() > maxEntries) {
+                kept.sort(Map.Entry.<Path, Instant> comparingByValue(Comparator.reverseOrder()));
+
+                for (var entry : kept.subList(maxEntries, kept.size())) {
+                    Files.deleteIfExists(entry.getKey());
+                    deleted++;
+                }
+            }
+        }
+        catch (IOException e) {
+            log.warn("Could not clean up revalidation cache {}", root, e);
+        }
+
+        if (deleted > 0) {
+            log.debug("Removed {} entries from revalidation cache {}", deleted, root);
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public Session open(Path bagDir) {
+        var bag = bagDir.toAbsolutePath().normalize();
+        var entryFile = root.resolve(hash(bag.toString()) + ".json");
+        return new SessionImpl(bag, entryFile, new CachedDigests(bag, read(entryFile, bag)));
+    }
+
+    private static Fingerprint fingerprint(Path file) throws IOException {
+        BasicFileAttributes attributes;
+
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+
+        return new Fingerprint(
+            attributes.size(),
+            attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+            attributes.fileKey() != null ? attributes.fileKey().toString() : null);
+    }
+
+    private CacheEntry read(Path entryFile, Path bag) {
+        if (!Files.exists(entryFile)) {
+            return new CacheEntry(bag.toString(), Map.of());
+        }
+
+        try {
+            var entry = objectMapper.readValue(entryFile.toFile(), CacheEntry.class);
+
+            // guard against hash collisions
+            if (bag.toString().equals(entry.getBagPath())) {
+                return entry;
+            }
+        }
+        catch (IOException e) {
+            log.warn("Ignoring unreadable revalidation cache entry {}", entryFile, e);
+        }
+
+        return new CacheEntry(bag.toString(), Map.of());
+    }
+
+    private static String hash(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The cached digests of a bag. A file is fingerprinted when its digests are first asked for, which the checksum verifier does just before it would read
+     * the file; so the files are not all stat-ed up front, and only the files that were fingerprinted before they were read can be saved.
+     */
+    private static class CachedDigests extends FileDigests {
+        private final Path bag;
+        private final CacheEntry cached;
+        // relative path -> fingerprint at the first lookup, or empty if it is not a regular file
+        private final Map<String, Optional<Fingerprint>> fingerprints = new ConcurrentHashMap<>();
+
+        CachedDigests(Path bag, CacheEntry cached) {
+            this.bag = bag;
+            this.cached = cached;
+        }
+
+        @Override
+        public Optional<String> get(Path file, String algorithm) {
+            var normalized = file.toAbsolutePath().normalize();
+
+            if (normalized.startsWith(bag)) {
+                fingerprints.computeIfAbsent(bag.relativize(normalized).toString(), k -> load(normalized, k));
+            }
+
+            return super.get(file, algorithm);
+        }
+
+        private Optional<Fingerprint> load(Path file, String relativePath) {
+            Optional<Fingerprint> fingerprint;
+
+            try {
+                fingerprint = Optional.ofNullable(fingerprint(file));
+            }
+            catch (IOException e) {
+                // the verification reports the file if it cannot be read
+                return Optional.empty();
+            }
+
+            var cachedFile = cached.getFiles().get(relativePath);
+
+            if (fingerprint.isPresent() && cachedFile != null && cachedFile.getFingerprint().equals(fingerprint.get())) {
+                cachedFile.getDigests().forEach((algorithm, digest) -> put(file, algorithm, digest));
+            }
+
+            return fingerprint;
+        }
+    }
+
+    @AllArgsConstructor
+    private class SessionImpl implements Session {
+        private final Path bag;
+        private final Path entryFile;
+        private final CachedDigests digests;
+
+        @Override
+        public FileDigests getDigests() {
+            return digests;
+        }
+
+        @Override
+        public void save(FileDigests verifiedDigests) {
+            var racyThreshold = Instant.now().minus(RACY_INTERVAL);
+            var files = new HashMap<String, CachedFile>();
+
+            try {
+                for (var entry : digests.fingerprints.entrySet()) {
+                    if (entry.getValue().isEmpty()) {
+                        continue;
+                    }
+
+                    var file = bag.resolve(entry.getKey());
+                    var fingerprint = entry.getValue().get();
+                    var fileDigests = verifiedDigests.getAll(file);
+
+                    // only cache digests of files that did not change while they were verified
+                    if (fileDigests.isEmpty() || !fingerprint.equals(fingerprint(file))
+                        || Instant.EPOCH.plusNanos(fingerprint.getLastModifiedNanos()).isAfter(racyThreshold)) {
+                        continue;
+                    }
+
+                    files.put(entry.getKey(), new CachedFile(fingerprint, fileDigests));
+                }
+
+                var tempFile = Files.createTempFile(root, "entry-", ".tmp");
+
+                try {
+                    objectMapper.writeValue(tempFile.toFile(), new CacheEntry(bag.toString(), files));
+                    Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                finally {
+                    Files.deleteIfExists(tempFile);
+                }
+
+                log.debug("Cached digests of {} files in {}", files.size(), bag);
+            }
+            catch (IOException e) {
+                // the cache is an optimization; the validation result is not affected
+                log.warn("Could not update revalidation cache for {}", bag, e);
+            }
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Fingerprint {
+        private long size;
+        private long lastModifiedNanos;
+        private String fileKey;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CachedFile {
+        private Fingerprint fingerprint;
+        private Map<String, String> digests;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CacheEntry {
+        private String bagPath;
+        private Map<String, CachedFile> files;
+    }
+}
@@ -16,9 +16,14 @@
 package nl.knaw.dans.validatedansbag.core.service;
 
 import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 
 import java.nio.file.Path;
 
 public interface RuleEngineService {
-    ValidateOkDto validateBag(Path path, String bagLocation) throws Exception;
+    default ValidateOkDto validateBag(Path path, String bagLocation) throws Exception {
+        return validateBag(path, bagLocation, new ValidationContext());
+    }
+
+    ValidateOkDto validateBag(Path path, String bagLocation, ValidationContext context) throws Exception;
 }
@@ -23,6 +23,15 @@ import nl.knaw.dans.lib.util.ruleengine.RuleValidationResult;
 import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
 import nl.knaw.dans.validatedansbag.api.ValidateOkRuleViolationsInnerDto;
 import nl.knaw.dans.validatedansbag.core.BagNotFoundException;
+import nl.knaw.dans.validatedansbag.core.ValidationCancelledException;
+import nl.knaw.dans.validatedansbag.core.engine.InstrumentedRule;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationRegistry;
+import nl.knaw.dans.validatedansbag.core.report.RuleTimingDto;
+import nl.knaw.dans.validatedansbag.core.report.SkippedCheckDto;
+import nl.knaw.dans.validatedansbag.core.report.TimingsDto;
+import nl.knaw.dans.validatedansbag.core.report.ValidationReportDto;
 
 import java.nio.file.Path;
 import java.util.List;
@@ -34,18 +43,27 @@ public class RuleEngineServiceImpl implements RuleEngineService {
     private final RuleEngine ruleEngine;
     private final FileService fileService;
     private final List<NumberedRule> ruleSet;
+    private final ValidationRegistry validationRegistry;
 
     public RuleEngineServiceImpl(RuleEngine ruleEngine,
         FileService fileService,
         List<NumberedRule> ruleSet) {
+        this(ruleEngine, fileService, ruleSet, new ValidationRegistry());
+    }
+
+    public RuleEngineServiceImpl(RuleEngine ruleEngine,
+        FileService fileService,
+        List<NumberedRule> ruleSet,
+        ValidationRegistry validationRegistry) {
         this.ruleEngine = ruleEngine;
         this.fileService = fileService;
-        this.ruleSet = ruleSet;
+        this.ruleSet = InstrumentedRule.instrument(ruleSet);
+        this.validationRegistry = validationRegistry;
         this.validateRuleConfiguration();
     }
 
     @Override
-    public ValidateOkDto validateBag(Path path, String bagLocation) throws Exception {
+    public ValidateOkDto validateBag(Path path, String bagLocation, ValidationContext context) throws Exception {
         log.info("Validating bag on path '{}'", path);
 
         if (!fileService.isReadable(path)) {
@@ -53,35 +71,95 @@ public class RuleEngineServiceImpl implements RuleEngineService {
             throw new BagNotFoundException(String.format("Bag on path '%s' could not be found or read", path));
         }
 
-        var results = ruleEngine.validateBag(path, this.ruleSet);
+        List<RuleValidationResult> results;
+        var start = System.nanoTime();
+
+        try (var ignored = context.activate(); var running = validationRegistry.register(path, context)) {
+            log.debug("Validation {} of '{}' started", running.getId(), path);
+            results = ruleEngine.validateBag(path, this.ruleSet);
+        }
+        catch (Exception e) {
+            if (context.isCancelled()) {
+                throw cancelled(path);
+            }
+            throw e;
+        }
+
+        if (context.isCancelled()) {
+            throw cancelled(path);
+        }
+
+        var wallTime = System.nanoTime() - start;
         var isValid = results.stream().noneMatch(r -> r.getStatus().equals(RuleValidationResult.RuleValidationResultStatus.FAILURE));
 
-        var result = new ValidateOkDto();
+        var result = createReport(path.getFileName().toString(), bagLocation, isValid, results.stream()
+            .filter(r -> r.getStatus().equals(RuleValidationResult.RuleValidationResultStatus.FAILURE))
+            .map(rule -> createViolation(rule.getNumber(), rule.getErrorMessage()))
+            .collect(Collectors.toList()));
+
+        if (context.getProfile() != ValidationProfile.FULL) {
+            result.setProfile(context.getProfile().getParamValue());
+            result.setSkippedChecks(getSkippedChecks(context.getProfile(), results));
+        }
+
+        if (context.isTimingsRequested()) {
+            result.setTimings(getTimings(context, wallTime));
+        }
+
+        log.debug("Validation result: {}", result);
+
+        return result;
+    }
+
+    private ValidationCancelledException cancelled(Path path) {
+        // the worker may have been interrupted after the last check; clear the flag, as the thread will be reused
+        Thread.interrupted();
+        log.info("Validation of '{}' was cancelled", path);
+        return new ValidationCancelledException(String.format("Validation of bag on path '%s' was cancelled", path));
+    }
+
+    private ValidationReportDto createReport(String name, String bagLocation, boolean isCompliant, List<ValidateOkRuleViolationsInnerDto> violations) {
+        var result = new ValidationReportDto();
         result.setBagLocation(bagLocation);
-        result.setIsCompliant(isValid);
-        result.setName(path.getFileName().toString());
+        result.setIsCompliant(isCompliant);
+        result.setName(name);
         result.setProfileVersion("1.2.0");
         result.setInformationPackageType(ValidateOkDto.InformationPackageTypeEnum.DEPOSIT);
-        result.setRuleViolations(results.stream()
-            .filter(r -> r.getStatus().equals(RuleValidationResult.RuleValidationResultStatus.FAILURE))
-            .map(rule -> {
-                var ret = new ValidateOkRuleViolationsInnerDto();
-                ret.setRule(rule.getNumber());
+        result.setRuleViolations(violations);
+        return result;
+    }
 
-                var message = new StringBuilder();
+    private ValidateOkRuleViolationsInnerDto createViolation(String rule, String errorMessage) {
+        var ret = new ValidateOkRuleViolationsInnerDto();
+        ret.setRule(rule);
 
-                if (rule.getErrorMessage() != null) {
-                    message.append(rule.getErrorMessage());
-                }
+        var message = new StringBuilder();
 
-                ret.setViolation(message.toString());
-                return ret;
-            })
-            .collect(Collectors.toList()));
+        if (errorMessage != null) {
+            message.append(errorMessage);
+        }
 
-        log.debug("Validation result: {}", result);
+        ret.setViolation(message.toString());
+        return ret;
+    }
 
-        return result;
+    private List<SkippedCheckDto> getSkippedChecks(ValidationProfile profile, List<RuleValidationResult> results) {
+        return results.stream()
+            .filter(r -> profile.getSkippedChecks().containsKey(r.getNumber()))
+            .map(r -> new SkippedCheckDto(r.getNumber(), profile.getSkippedChecks().get(r.getNumber())))
+            .collect(Collectors.toList());
+    }
+
+    private TimingsDto getTimings(ValidationContext context, long wallTimeNanos) {
+        var timings = new TimingsDto();
+        timings.setWallTimeMillis(wallTimeNanos / 1_000_000.0);
+        timings.setBytesRead(context.getBytesRead());
+        timings.setFilesHashed(context.getFilesHashed());
+        timings.setRemoteCalls(context.getRemoteCalls());
+        timings.setRules(context.getRuleTimings().stream()
+            .map(RuleTimingDto::of)
+            .collect(Collectors.toList()));
+        return timings;
     }
 
     public void validateRuleConfiguration() {
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import nl.knaw.dans.validatedansbag.core.ScratchSpaceExhaustedException;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The area under the base folder where uploaded ZIP files are extracted. The number of concurrent extractions and the total number of bytes extracted are
+ * limited. An extraction is deleted when it is closed; anything that is left behind (e.g. after a crash) is removed by a periodic sweep.
+ */
+public interface ScratchSpace {
+
+    /**
+     * Extracts a ZIP file. The entries are first compared with the manifests of the bag in it; if they do not match, only the files outside the data directory
+     * are extracted, and they are not hashed.
+     *
+     * @param profile the profile of the validation; if it does not verify payload checksums, the payload files are not hashed
+     */
+    Extraction extractZipFile(Path zipFile, ValidationProfile profile) throws IOException, ScratchSpaceExhaustedException;
+
+    /**
+     * Deletes everything in the scratch space that does not belong to a running extraction and has not been modified for at least the configured maximum age.
+     *
+     * @return the number of directories and files deleted
+     */
+    int sweepOrphans();
+
+    interface Extraction extends AutoCloseable {
+        Path getPath();
+
+        long getBytes();
+
+        /**
+         * The digests computed while extracting, for the algorithms of the manifests in the ZIP file.
+         */
+        FileDigests getDigests();
+
+        /**
+         * The files that are missing from the ZIP file or from a payload manifest of the bag in it. If there are any, the payload was not extracted.
+         */
+        List<String> getIncompleteBagProblems();
+
+        @Override
+        void close();
+    }
+}
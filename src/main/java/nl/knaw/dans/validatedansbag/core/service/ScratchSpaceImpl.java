@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.config.ScratchSpaceConfig;
+import nl.knaw.dans.validatedansbag.core.ScratchSpaceExhaustedException;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class ScratchSpaceImpl implements ScratchSpace, Managed {
+    private final Path root;
+    private final ParallelZipExtractor extractor;
+    private final long maxBytes;
+    private final int maxConcurrentExtractions;
+    private final Duration acquireTimeout;
+    private final Duration orphanMaxAge;
+    private final Duration sweepInterval;
+
+    private final Semaphore extractions;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService sweeper;
+
+    public ScratchSpaceImpl(Path root, FileService fileService, ScratchSpaceConfig config, ExecutorService extractionExecutor) {
+        this.root = root.normalize().toAbsolutePath();
+        this.extractor = new ParallelZipExtractor(extractionExecutor, fileService);
+        this.maxBytes = config.getMaxSize().toBytes();
+        this.maxConcurrentExtractions = config.getMaxConcurrentExtractions();
+        this.acquireTimeout = Duration.ofMillis(config.getAcquireTimeout().toMilliseconds());
+        this.orphanMaxAge = Duration.ofMillis(config.getOrphanMaxAge().toMilliseconds());
+        this.sweepInterval = Duration.ofMillis(config.getSweepInterval().toMilliseconds());
+        this.extractions = new Semaphore(maxConcurrentExtractions, true);
+
+        try {
+            Files.createDirectories(this.root);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not create temp directory", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        // nothing can be running yet, so everything that is there is left over from a previous run
+        log.info("Removed {} orphaned entries from scratch space {}", sweep(Duration.ZERO), root);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "scratch-space-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepOrphans, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    @Override
+    public Extraction extractZipFile(Path zipFile, ValidationProfile profile) throws IOException, ScratchSpaceExhaustedException {
+        acquire();
+        ExtractionImpl extraction;
+
+        try {
+            extraction = new ExtractionImpl(Files.createTempDirectory(root, "bag-"));
+        }
+        catch (IOException | RuntimeException e) {
+            extractions.release();
+            throw e;
+        }
+
+        try {
+            var result = extractor.extract(zipFile, extraction.getPath(), profile, extraction::reserve);
+            extraction.digests = result.getDigests();
+            extraction.incompleteBagProblems = result.getIncompleteBagProblems();
+            log.debug("Extracted {} bytes to {}", extraction.getBytes(), extraction.getPath());
+            return extraction;
+        }
+        catch (IOException | ScratchSpaceExhaustedException | RuntimeException e) {
+            extraction.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int sweepOrphans() {
+        var deleted = sweep(orphanMaxAge);
+
+        if (deleted > 0) {
+            log.warn("Removed {} orphaned entries from scratch space {}", deleted, root);
+        }
+
+        return deleted;
+    }
+
+    private void acquire() throws ScratchSpaceExhaustedException, InterruptedIOException {
+        try {
+            if (!extractions.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ScratchSpaceExhaustedException(String.format(
+                    "Maximum number of concurrent ZIP extractions (%d) reached, try again later", maxConcurrentExtractions));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for scratch space");
+        }
+    }
+
+    private int sweep(Duration maxAge) {
+        var deleted = 0;
+        var threshold = Instant.now().minus(maxAge);
+
+        try (var entries = Files.list(root)) {
+            for (var entry : (Iterable<Path>) entries::iterator) {
+                if (running.contains(entry)) {
+                    continue;
+                }
+
+                try {
+                    if (Files.getLastModifiedTime(entry).toInstant().isAfter(threshold)) {
+                        continue;
+                    }
+
+                    FileUtils.forceDelete(entry.toFile());
+                    deleted++;
+                }
+                catch (IOException e) {
+                    log.warn("Could not remove {} from scratch space", entry, e);
+                }
+            }
+        }
+        catch (IOException e) {
+            log.error("Could not list scratch space {}", root, e);
+        }
+
+        return deleted;
+    }
+
+    private class ExtractionImpl implements Extraction {
+        private final Path path;
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private FileDigests digests = new FileDigests();
+        private List<String> incompleteBagProblems = List.of();
+
+        ExtractionImpl(Path path) {
+            this.path = path;
+            running.add(path);
+        }
+
+        @Override
+        public Path getPath() {
+            return path;
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        @Override
+        public FileDigests getDigests() {
+            return digests;
+        }
+
+        @Override
+        public List<String> getIncompleteBagProblems() {
+            return incompleteBagProblems;
+        }
+
+        void reserve(long count) throws ScratchSpaceExhaustedException {
+            if (usedBytes.addAndGet(count) > maxBytes) {
+                usedBytes.addAndGet(-count);
+                throw new ScratchSpaceExhaustedException(String.format(
+                    "Not enough scratch space to extract the ZIP file; the limit is %d bytes, try again later", maxBytes));
+            }
+
+            bytes.addAndGet(count);
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                FileUtils.deleteDirectory(path.toFile());
+            }
+            catch (IOException e) {
+                // the sweep will try again
+                log.warn("Could not remove extracted ZIP file {}", path, e);
+            }
+            finally {
+                running.remove(path);
+                usedBytes.addAndGet(-bytes.get());
+                extractions.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Optional;
+
+/**
+ * Checks that a stream of bytes is valid UTF-8 without decoding it, using a constant amount of memory. Overlong encodings, surrogates and code points above
+ * U+10FFFF are rejected, as by the UTF-8 decoder of the JDK.
+ */
+public class Utf8Validator {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+
+    private static final int INVALID = -1;
+    private static final int INCOMPLETE = 0;
+
+    private final boolean asciiFastPath;
+
+    /**
+     * @param asciiFastPath check eight bytes at a time while the input is ASCII
+     */
+    public Utf8Validator(boolean asciiFastPath) {
+        this.asciiFastPath = asciiFastPath;
+    }
+
+    /**
+     * @return the first invalid byte sequence, or empty if the input is valid UTF-8
+     */
+    public Optional<InvalidSequence> findInvalidSequence(ReadableByteChannel channel) throws IOException {
+        // a heap buffer per call: a direct buffer per thread would cost a native allocation for every (virtual) thread that ever validates a file
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // the offset in the input of the first byte in the buffer
+        var offset = 0L;
+        var newlines = 0L;
+        var eof = false;
+
+        while (true) {
+            eof = channel.read(buffer) == -1;
+            buffer.flip();
+
+            var limit = buffer.limit();
+            var i = 0;
+
+            while (i < limit) {
+                if (asciiFastPath && i + Long.BYTES <= limit) {
+                    var word = buffer.getLong(i);
+
+                    if ((word & HIGH_BITS) == 0) {
+                        newlines += countZeroBytes(word ^ NEWLINES);
+                        i += Long.BYTES;
+                        continue;
+                    }
+                }
+
+                var b = buffer.get(i);
+
+                if (b >= 0) {
+                    if (b == '\n') {
+                        ++newlines;
+                    }
+
+                    ++i;
+                    continue;
+                }
+
+                var length = sequenceLength(buffer, i, limit);
+
+                if (length > 0) {
+                    i += length;
+                }
+                else if (length == INCOMPLETE && !eof) {
+                    // the rest of the sequence is in the next block
+                    break;
+                }
+                else {
+                    return Optional.of(new InvalidSequence(offset + i, newlines + 1));
+                }
+            }
+
+            if (eof) {
+                return Optional.empty();
+            }
+
+            buffer.position(i);
+            buffer.compact();
+            offset += i;
+        }
+    }
+
+    // the number of bytes in the word that are zero; exact, unlike the usual "has zero byte" trick
+    private static int countZeroBytes(long word) {
+        var t = (word & LOW_BITS) + LOW_BITS;
+        return Long.bitCount(~(t | word | LOW_BITS));
+    }
+
+    /**
+     * @return the length of the multibyte sequence starting at i, INVALID, or INCOMPLETE if the buffer ends before the sequence does
+     */
+    private static int sequenceLength(ByteBuffer buffer, int i, int limit) {
+        var lead = buffer.get(i) & 0xFF;
+        var length = 0;
+        // the range of the second byte, narrowed for some lead bytes to exclude overlong encodings, surrogates and values above U+10FFFF
+        var min = 0x80;
+        var max = 0xBF;
+
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+        }
+        else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+
+            if (lead == 0xE0) {
+                min = 0xA0;
+            }
+            else if (lead == 0xED) {
+                max = 0x9F;
+            }
+        }
+        else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+
+            if (lead == 0xF0) {
+                min = 0x90;
+            }
+            else if (lead == 0xF4) {
+                max = 0x8F;
+            }
+        }
+        else {
+            return INVALID;
+        }
+
+        for (var k = 1; k < length; ++k) {
+            if (i + k >= limit) {
+                return INCOMPLETE;
+            }
+
+            var b = buffer.get(i + k) & 0xFF;
+
+            if (b < min || b > max) {
+                return INVALID;
+            }
+
+            min = 0x80;
+            max = 0xBF;
+        }
+
+        return length;
+    }
+
+    @Value
+    public static class InvalidSequence {
+        // the offset of the first byte of the sequence
+        long offset;
+        // the line the sequence is on, counting from 1
+        long line;
+
+        @Override
+        public String toString() {
+            return String.format("invalid byte sequence at offset %d (line %d)", offset, line);
+        }
+    }
+}
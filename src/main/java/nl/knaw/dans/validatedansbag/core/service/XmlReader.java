@@ -18,12 +18,14 @@ package nl.knaw.dans.validatedansbag.core.service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 
 public interface XmlReader {
@@ -40,6 +42,16 @@ public interface XmlReader {
 
     Document readXmlFile(Path path) throws ParserConfigurationException, IOException, SAXException;
 
+    /**
+     * Validates an XML file against a schema.
+     *
+     * @param path   the file
+     * @param schema the name of the schema, e.g. "dataset.xml"
+     * @return the violations of the schema, with their line and column in the file; empty if the file conforms to the schema
+     * @throws SAXException if the file is not well-formed, or the schema cannot be loaded
+     */
+    List<SAXParseException> validateXmlFile(Path path, String schema) throws ParserConfigurationException, IOException, SAXException;
+
     Stream<Node> xpathToStream(Node node, String expression) throws XPathExpressionException;
 
     Stream<Node> xpathsToStream(Node node, Collection<String> expressions) throws XPathExpressionException;
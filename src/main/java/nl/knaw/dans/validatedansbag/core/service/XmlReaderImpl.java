@@ -15,36 +15,88 @@
  */
 package nl.knaw.dans.validatedansbag.core.service;
 
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.StringReader;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+@Slf4j
 public class XmlReaderImpl implements XmlReader {
+    public static final long DEFAULT_DEFERRED_NODE_EXPANSION_THRESHOLD = 1024 * 1024;
+
+    private static final String FEATURE_DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+    private static final String FEATURE_SCHEMA_NORMALIZED_VALUE = "http://apache.org/xml/features/validation/schema/normalized-value";
+    private static final String FEATURE_SCHEMA_ELEMENT_DEFAULT = "http://apache.org/xml/features/validation/schema/element-default";
 
     private final XPath xpath;
+    private final int maxIdleBuilders;
+    private final long deferredNodeExpansionThreshold;
+    private final Map<String, URI> schemaLocations;
+    // compiled schemas are thread-safe, but the factory that compiles them is not
+    private final Map<String, Schema> schemas = new HashMap<>();
+    private final SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    private final Map<BuilderKey, BuilderPool> builderPools = new ConcurrentHashMap<>();
 
     public XmlReaderImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public XmlReaderImpl(int maxIdleBuilders) {
+        this(maxIdleBuilders, DEFAULT_DEFERRED_NODE_EXPANSION_THRESHOLD, Map.of());
+    }
+
+    /**
+     * @param maxIdleBuilders                the maximum number of document builders of each kind that are kept for reuse, or 0 to create a new builder for
+     *                                       every document; when more documents are parsed at the same time, the extra builders are discarded afterwards
+     * @param deferredNodeExpansionThreshold files of this size in bytes or larger are parsed into a DOM whose nodes are only created when they are first
+     *                                       visited; such a document must not be read by more than one thread at the same time
+     * @param schemaLocations                the locations of the XML schemas that {@link #validateXmlFile(Path, String)} accepts, by name; a schema is loaded
+     *                                       when it is first used
+     */
+    public XmlReaderImpl(int maxIdleBuilders, long deferredNodeExpansionThreshold, Map<String, URI> schemaLocations) {
+        if (maxIdleBuilders < 0) {
+            throw new IllegalArgumentException("maxIdleBuilders must not be negative: " + maxIdleBuilders);
+        }
+
+        this.maxIdleBuilders = maxIdleBuilders;
+        this.deferredNodeExpansionThreshold = deferredNodeExpansionThreshold;
+        this.schemaLocations = Map.copyOf(schemaLocations);
         this.xpath = XPathFactory
             .newInstance()
             .newXPath();
@@ -81,21 +133,111 @@ public class XmlReaderImpl implements XmlReader {
 
     }
 
+    /**
+     * Parses the file, or returns the document that was parsed from it earlier in the same validation. The document is shared by all rules that read the
+     * file, so they must not modify it. If the file was validated against a schema, attributes that have a default value in that schema are part of the
+     * document.
+     */
     @Override
     public Document readXmlFile(Path path) throws ParserConfigurationException, IOException, SAXException {
-        var factory = getFactory();
+        return ValidationContext.current()
+            .<ParsedDocument> computeIfAbsent(getDocumentKey(path), k -> tryParseXmlFile(path, null, null))
+            .getDocument();
+    }
+
+    /**
+     * Validates the file against the schema while parsing it. The document is kept for the rules that read the file later in the same validation, so that
+     * the file is parsed only once.
+     */
+    @Override
+    public List<SAXParseException> validateXmlFile(Path path, String schema) throws ParserConfigurationException, IOException, SAXException {
+        var compiledSchema = getSchema(schema);
+        var parsed = ValidationContext.current()
+            .<ParsedDocument> computeIfAbsent(getDocumentKey(path), k -> tryParseXmlFile(path, schema, compiledSchema));
+
+        if (!schema.equals(parsed.getSchema())) {
+            // a rule read the file before it was validated; this does not happen with the dependencies in RuleSets
+            parsed = tryParseXmlFile(path, schema, compiledSchema);
+        }
+
+        // throws the parse error if the file is not well-formed
+        parsed.getDocument();
+        return parsed.getSchemaErrors();
+    }
+
+    private static String getDocumentKey(Path path) {
+        return "xml-document:" + path.toAbsolutePath().normalize();
+    }
+
+    private ParsedDocument tryParseXmlFile(Path path, String schema, Schema compiledSchema) {
+        var errors = new ArrayList<SAXParseException>();
+
+        try {
+            return new ParsedDocument(parseXmlFile(path, compiledSchema, errors), null, schema, errors);
+        }
+        catch (ParserConfigurationException | IOException | SAXException e) {
+            // an invalid file fails the same way for every rule that reads it
+            return new ParsedDocument(null, e, schema, errors);
+        }
+    }
+
+    private Document parseXmlFile(Path path, Schema schema, List<SAXParseException> errors) throws ParserConfigurationException, IOException, SAXException {
+        var size = Files.size(path);
+        // a fully expanded DOM is faster to traverse, but a large files.xml or dataset.xml takes a lot of memory that way, while rules often only visit part
+        // of it
+        var pool = getBuilderPool(schema, size >= deferredNodeExpansionThreshold);
+        var builder = pool.borrow();
+        Document document;
 
-        return factory
-            .newDocumentBuilder()
-            .parse(path.toFile());
+        try {
+            if (schema != null) {
+                builder.setErrorHandler(new CollectingErrorHandler(errors));
+            }
+
+            document = builder.parse(path.toFile());
+        }
+        finally {
+            pool.release(builder);
+        }
+
+        ValidationContext.current().addBytesRead(size);
+        return document;
     }
 
     public Document readXmlString(String str) throws ParserConfigurationException, IOException, SAXException {
-        var factory = getFactory();
+        var pool = getBuilderPool(null, false);
+        var builder = pool.borrow();
+
+        try {
+            return builder.parse(new InputSource(new StringReader(str)));
+        }
+        finally {
+            pool.release(builder);
+        }
+    }
+
+    private BuilderPool getBuilderPool(Schema schema, boolean deferNodeExpansion) {
+        return builderPools.computeIfAbsent(new BuilderKey(schema, deferNodeExpansion), k -> new BuilderPool(createFactory(k), maxIdleBuilders));
+    }
 
-        return factory
-            .newDocumentBuilder()
-            .parse(new InputSource(new StringReader(str)));
+    private Schema getSchema(String name) throws SAXException, IOException {
+        var location = schemaLocations.get(name);
+
+        if (location == null) {
+            throw new IllegalArgumentException("No XML schema configured with name " + name);
+        }
+
+        synchronized (schemas) {
+            var schema = schemas.get(name);
+
+            if (schema == null) {
+                log.debug("Loading XML schema {} from {}", name, location);
+                schema = schemaFactory.newSchema(location.toURL());
+                schemas.put(name, schema);
+            }
+
+            return schema;
+        }
     }
 
     private Object evaluateXpath(Node node, String expr, QName type) throws XPathExpressionException {
@@ -132,11 +274,130 @@ public class XmlReaderImpl implements XmlReader {
         return xpathsToStream(node, expressions).map(Node::getTextContent);
     }
 
-    private DocumentBuilderFactory getFactory() throws ParserConfigurationException {
+    private static DocumentBuilderFactory createFactory(BuilderKey key) {
         var factory = DocumentBuilderFactory.newInstance();
-        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        }
+        catch (ParserConfigurationException e) {
+            throw new IllegalStateException("XML parser does not support secure processing", e);
+        }
+
+        try {
+            // the parser in the JDK defers by default, so it is set explicitly both ways
+            factory.setFeature(FEATURE_DEFER_NODE_EXPANSION, key.isDeferNodeExpansion());
+        }
+        catch (ParserConfigurationException e) {
+            log.warn("XML parser does not support deferred node expansion; using its default DOM");
+        }
+
+        if (key.getSchema() != null) {
+            factory.setSchema(key.getSchema());
+
+            try {
+                // the rules that read the document must see the text as it is in the file, not as normalized by the schema
+                factory.setFeature(FEATURE_SCHEMA_NORMALIZED_VALUE, false);
+                factory.setFeature(FEATURE_SCHEMA_ELEMENT_DEFAULT, false);
+            }
+            catch (ParserConfigurationException e) {
+                log.warn("XML parser does not support keeping the values of validated elements as they are in the file");
+            }
+        }
+
         factory.setNamespaceAware(true);
         return factory;
     }
+
+    @Value
+    private static class BuilderKey {
+        // compiled schemas are cached, so they are equal only to themselves
+        Schema schema;
+        boolean deferNodeExpansion;
+    }
+
+    private static class BuilderPool {
+        private final DocumentBuilderFactory factory;
+        // builders are expensive to create but not thread-safe, so idle ones are kept here for the next parse; null if they are not kept
+        private final BlockingQueue<DocumentBuilder> idle;
+
+        BuilderPool(DocumentBuilderFactory factory, int maxIdle) {
+            this.factory = factory;
+            this.idle = maxIdle == 0 ? null : new ArrayBlockingQueue<>(maxIdle);
+        }
+
+        DocumentBuilder borrow() throws ParserConfigurationException {
+            var builder = idle == null ? null : idle.poll();
+
+            if (builder != null) {
+                return builder;
+            }
+
+            // the factory is not guaranteed to be thread-safe
+            synchronized (factory) {
+                return factory.newDocumentBuilder();
+            }
+        }
+
+        void release(DocumentBuilder builder) {
+            if (idle != null) {
+                // reset restores the settings of the factory, so the secure processing features still hold for the next document
+                builder.reset();
+                idle.offer(builder);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class CollectingErrorHandler implements ErrorHandler {
+        private final List<SAXParseException> errors;
+
+        @Override
+        public void warning(SAXParseException exception) {
+            log.debug("Warning while validating XML file", exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+            // schema violations are reported here; the parse goes on, so that all of them are found
+            errors.add(exception);
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ParsedDocument {
+        private final Document document;
+        private final Exception exception;
+        // the name of the schema the document was validated against, or null if it was not
+        private final String schema;
+        private final List<SAXParseException> schemaErrors;
+
+        String getSchema() {
+            return schema;
+        }
+
+        List<SAXParseException> getSchemaErrors() {
+            return schemaErrors;
+        }
+
+        Document getDocument() throws ParserConfigurationException, IOException, SAXException {
+            if (exception instanceof ParserConfigurationException) {
+                throw (ParserConfigurationException) exception;
+            }
+            else if (exception instanceof IOException) {
+                throw (IOException) exception;
+            }
+            else if (exception instanceof SAXException) {
+                throw (SAXException) exception;
+            }
+
+            return document;
+        }
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Compares the entries in the central directory of a ZIP file with the payload manifests of the bag inside it. Only the (small) manifest entries are inflated,
+ * so it is known before extraction whether the bag is complete. The problems are reported by rule 1.1.1, so that the payload of an incomplete bag does not
+ * have to be extracted.
+ * <p>
+ * If the ZIP does not contain exactly one bag with a bagit.txt directly under its top directory, the check is skipped and an empty list is returned.
+ */
+@Slf4j
+public class ZipManifestPreCheck {
+    private static final Pattern PAYLOAD_MANIFEST_NAME = Pattern.compile("^manifest-[a-z0-9]+\\.txt$");
+    private static final int MAX_REPORTED_FILES = 10;
+
+    /**
+     * @return the files that are missing from the ZIP file or from a payload manifest; empty if the bag in the ZIP file is complete
+     */
+    public List<String> check(ZipFile zip, List<? extends ZipEntry> entries) throws IOException {
+        var bagPrefix = findBagPrefix(entries);
+
+        if (bagPrefix == null) {
+            return List.of();
+        }
+
+        var payload = new HashSet<String>();
+        var payloadManifests = new ArrayList<ZipEntry>();
+
+        for (var entry : entries) {
+            if (entry.isDirectory() || !entry.getName().startsWith(bagPrefix)) {
+                continue;
+            }
+
+            var name = entry.getName().substring(bagPrefix.length());
+
+            if (name.startsWith("data/")) {
+                payload.add(name);
+            }
+            else if (PAYLOAD_MANIFEST_NAME.matcher(name).matches()) {
+                payloadManifests.add(entry);
+            }
+        }
+
+        var problems = new ArrayList<String>();
+
+        for (var manifest : payloadManifests) {
+            var listed = readManifestPaths(zip, manifest);
+            var manifestName = manifest.getName().substring(bagPrefix.length());
+
+            report(problems, listed.stream().filter(p -> !payload.contains(p)), "listed in %s but not present in the ZIP file", manifestName);
+            report(problems, payload.stream().filter(p -> !listed.contains(p)), "present in the ZIP file but not listed in %s", manifestName);
+        }
+
+        if (!problems.isEmpty()) {
+            log.debug("Bag {} in ZIP file is not complete: {}", bagPrefix, problems);
+        }
+
+        return problems;
+    }
+
+    // the same bag directory that FileService.getFirstDirectory finds after extraction, e.g. "bag/"
+    private String findBagPrefix(List<? extends ZipEntry> entries) {
+        var prefixes = entries.stream()
+            .map(ZipEntry::getName)
+            .filter(n -> n.endsWith("/bagit.txt") && n.indexOf('/') == n.length() - "/bagit.txt".length())
+            .map(n -> n.substring(0, n.length() - "bagit.txt".length()))
+            .collect(Collectors.toSet());
+
+        return prefixes.size() == 1 ? prefixes.iterator().next() : null;
+    }
+
+    private Set<String> readManifestPaths(ZipFile zip, ZipEntry manifest) throws IOException {
+        var paths = new HashSet<String>();
+
+        try (var reader = new BufferedReader(new InputStreamReader(zip.getInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                var parts = line.trim().split("\\s+", 2);
+
+                if (parts.length == 2) {
+                    paths.add(decodeFilepath(parts[1]));
+                }
+            }
+        }
+
+        return paths;
+    }
+
+    // BagIt 1.0 percent-encodes line breaks and the percent sign in manifest paths
+    private static String decodeFilepath(String path) {
+        return path.replace("%0A", "\n").replace("%0D", "\r").replace("%25", "%").replaceFirst("^\\./", "").replace('\\', '/');
+    }
+
+    private static void report(List<String> problems, Stream<String> paths, String what, String manifestName) {
+        var sorted = paths.collect(Collectors.toCollection(TreeSet::new));
+
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        var listed = sorted.stream().limit(MAX_REPORTED_FILES).collect(Collectors.joining(", "));
+        var more = sorted.size() > MAX_REPORTED_FILES ? String.format(" and %d more", sorted.size() - MAX_REPORTED_FILES) : "";
+        problems.add(String.format("%d file(s) %s: %s%s", sorted.size(), String.format(what, manifestName), listed, more));
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.validator;
+
+import lombok.Getter;
+import lombok.Value;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.service.Whitespace;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static nl.knaw.dans.validatedansbag.core.service.XmlReader.NAMESPACE_DCX_GML;
+import static nl.knaw.dans.validatedansbag.core.service.XmlReader.NAMESPACE_OPEN_GIS;
+
+/**
+ * The GML geometries in a dataset.xml, collected in one traversal of the document and shared by the rules that check them. The coordinates of points are
+ * parsed into {@code double[]} buffers; posLists are kept as text, as the checks on them are textual.
+ */
+@Getter
+public class GmlGeometries {
+    public static final String SRS_NAME_RD = "urn:ogc:def:crs:EPSG::28992";
+
+    // the area in which coordinates in a coordinate reference system are valid, by srsName
+    private static final Map<String, Bounds> BOUNDS = Map.of(
+        SRS_NAME_RD, new Bounds(-7000, 300000, 289000, 629000)
+    );
+
+    // gml:Point/gml:pos, gml:lowerCorner and gml:upperCorner, in document order
+    private final List<Point> points = new ArrayList<>();
+    // the text of the gml:posList elements in dcx-gml:spatial, in document order
+    private final List<String> posLists = new ArrayList<>();
+    // per gml:MultiSurface, the srsNames of the gml:Polygons in it
+    private final List<Set<String>> multiSurfaceSrsNames = new ArrayList<>();
+
+    private GmlGeometries() {
+    }
+
+    /**
+     * Returns the geometries in the document, collected only once per validation.
+     *
+     * @param file     the file the document was read from, which identifies it within the validation
+     * @param document the parsed file
+     */
+    public static GmlGeometries of(Path file, Document document) {
+        return ValidationContext.current().computeIfAbsent("gml-geometries:" + file.toAbsolutePath().normalize(), k -> read(document));
+    }
+
+    public static GmlGeometries read(Document document) {
+        var geometries = new GmlGeometries();
+        geometries.visit(document.getDocumentElement(), 0, new ArrayList<>());
+        return geometries;
+    }
+
+    public static Optional<Bounds> getBounds(String srsName) {
+        return Optional.ofNullable(srsName).map(BOUNDS::get);
+    }
+
+    private void visit(Element element, int spatialDepth, List<Set<String>> openMultiSurfaces) {
+        var namespace = element.getNamespaceURI();
+        var localName = element.getLocalName();
+        var addedMultiSurface = false;
+
+        if (NAMESPACE_DCX_GML.equals(namespace) && "spatial".equals(localName)) {
+            ++spatialDepth;
+        }
+        else if (NAMESPACE_OPEN_GIS.equals(namespace)) {
+            switch (localName) {
+                case "pos":
+                    if (isGmlElement(element.getParentNode(), "Point")) {
+                        addPoint(element);
+                    }
+                    break;
+                case "lowerCorner":
+                case "upperCorner":
+                    addPoint(element);
+                    break;
+                case "posList":
+                    if (spatialDepth > 0) {
+                        posLists.add(element.getTextContent());
+                    }
+                    break;
+                case "MultiSurface":
+                    var srsNames = new LinkedHashSet<String>();
+                    multiSurfaceSrsNames.add(srsNames);
+                    openMultiSurfaces.add(srsNames);
+                    addedMultiSurface = true;
+                    break;
+                case "Polygon":
+                    var srsName = element.getAttributeNode("srsName");
+
+                    if (srsName != null) {
+                        for (var open : openMultiSurfaces) {
+                            open.add(srsName.getValue());
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for (var child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                visit((Element) child, spatialDepth, openMultiSurfaces);
+            }
+        }
+
+        if (addedMultiSurface) {
+            openMultiSurfaces.remove(openMultiSurfaces.size() - 1);
+        }
+    }
+
+    private void addPoint(Element element) {
+        var parent = element.getParentNode();
+        var srsName = parent instanceof Element && ((Element) parent).hasAttribute("srsName") ? ((Element) parent).getAttribute("srsName") : null;
+        var text = element.getTextContent();
+        points.add(new Point(element.getLocalName(), text, srsName, parseCoordinates(text)));
+    }
+
+    private static boolean isGmlElement(Node node, String localName) {
+        return node instanceof Element && NAMESPACE_OPEN_GIS.equals(node.getNamespaceURI()) && localName.equals(node.getLocalName());
+    }
+
+    /**
+     * Parses whitespace separated numbers.
+     *
+     * @return the numbers, or null if one of them is not a number
+     */
+    public static double[] parseCoordinates(CharSequence text) {
+        var coordinates = new double[8];
+        var count = 0;
+        var length = text.length();
+        var i = 0;
+
+        while (true) {
+            while (i < length && Whitespace.isRegexWhitespace(text.charAt(i))) {
+                ++i;
+            }
+
+            if (i == length) {
+                break;
+            }
+
+            var start = i;
+
+            while (i < length && !Whitespace.isRegexWhitespace(text.charAt(i))) {
+                ++i;
+            }
+
+            if (count == coordinates.length) {
+                var grown = new double[count * 2];
+                System.arraycopy(coordinates, 0, grown, 0, count);
+                coordinates = grown;
+            }
+
+            try {
+                coordinates[count++] = Double.parseDouble(text.subSequence(start, i).toString());
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        if (count == coordinates.length) {
+            return coordinates;
+        }
+
+        var result = new double[count];
+        System.arraycopy(coordinates, 0, result, 0, count);
+        return result;
+    }
+
+    @Value
+    public static class Point {
+        String elementName;
+        String text;
+        // the srsName of the enclosing element, if any
+        String srsName;
+        // null if the text contains something that is not a number
+        double[] coordinates;
+
+        public boolean isNumeric() {
+            return coordinates != null;
+        }
+    }
+
+    @Value
+    public static class Bounds {
+        double minX;
+        double maxX;
+        double minY;
+        double maxY;
+
+        /**
+         * @return whether the pair of coordinates at the offset is within the bounds
+         */
+        public boolean contains(double[] coordinates, int offset) {
+            var x = coordinates[offset];
+            var y = coordinates[offset + 1];
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+    }
+}
@@ -15,8 +15,18 @@
  */
 package nl.knaw.dans.validatedansbag.core.validator;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface IdentifierValidator {
     boolean validateDai(String str);
     boolean validateOrcid(String str);
     boolean validateIsni(String str);
+
+    /**
+     * Validates all identifiers of one type, e.g. all DAIs in a document.
+     *
+     * @return the identifiers that are not valid, in the order in which they were encountered
+     */
+    List<String> findInvalid(IdentifierType type, Stream<String> identifiers);
 }
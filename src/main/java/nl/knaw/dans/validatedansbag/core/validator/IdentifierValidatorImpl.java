@@ -15,126 +15,183 @@
  */
 package nl.knaw.dans.validatedansbag.core.validator;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.service.Whitespace;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@SuppressWarnings("FieldCanBeLocal")
+/**
+ * Validates the check digits of identifiers. The validators scan the characters of the identifier and skip prefixes and separators as they go, without
+ * creating intermediate strings; they are called for every author in every dataset.xml.
+ */
+@Slf4j
 public class IdentifierValidatorImpl implements IdentifierValidator {
-    private final String daiPrefix = "info:eu-repo/dai/nl/";
+    private static final String DAI_PREFIX = "info:eu-repo/dai/nl/";
+    private static final String ISNI_PATH_PREFIX = "isni/";
+
+    private static final List<String> ORCID_DOMAINS = List.of("orcid.org", "www.orcid.org");
+    private static final List<String> ISNI_DOMAINS = List.of("isni.org", "www.isni.org");
 
-    private final List<String> orcidDomains = List.of("orcid.org", "www.orcid.org");
-    private final List<String> isniDomains = List.of("isni.org", "www.isni.org");
+    private static final int MOD_11_2_LENGTH = 16;
 
     /**
      * For details about the way this works, see https://en.wikipedia.org/wiki/MSI_Barcode#Mod_11_Check_Digit
      *
-     * @param str
-     * @return the checksum
+     * @param str the DAI, optionally prefixed with info:eu-repo/dai/nl/
+     * @return whether the check digit is correct
      */
     @Override
     public boolean validateDai(String str) {
-        str = str.replaceAll(daiPrefix, "");
+        var start = str.startsWith(DAI_PREFIX) ? DAI_PREFIX.length() : 0;
+        var last = str.length() - 1;
 
-        var index = new AtomicInteger();
-        var actual = str.charAt(str.length() - 1);
+        if (last <= start) {
+            return false;
+        }
 
-        // iterate each digit in a reversed string
+        // iterate the digits from right to left, skipping the check digit
         // note that the weights are a sequence based on index starting
         // from 2 up to and including 9 and once it goes over the max it
         // resets to the first item in the sequence
         // for example: 2,3,4,5,6,7,8,9,2,3,4 etc
-        var sum = new StringBuilder(str).reverse().substring(1)
-            .chars()
-            // convert digit character to numerical value
-            .map(c -> c - 48)
-            // multiply digit by weight
-            .map((c -> ((index.getAndIncrement() % 8) + 2) * c))
-            .sum();
+        var sum = 0;
+        var weightIndex = 0;
+
+        for (var i = last - 1; i >= start; --i) {
+            var digit = digitValue(str.charAt(i));
+
+            if (digit < 0) {
+                return false;
+            }
+
+            sum += ((weightIndex++ % 8) + 2) * digit;
+        }
 
         // apply this calculation to the sum of the digits multiplied by weights
         var check = (11 - (sum % 11)) % 11;
-        // convert numerical value back to character
-        var expected = check == 10 ? 'X' : (char) (check + 48);
-
-        return expected == actual;
+        return str.charAt(last) == checkCharacter(check);
     }
 
     /**
      * Information about the ORCID ID: https://support.orcid.org/hc/en-us/articles/360006897674-Structure-of-the-ORCID-Identifier
      *
-     * @param str
-     * @return
+     * @param str the ORCID iD, either as URI or only the 16 digits, with or without hyphens
+     * @return whether it is an ORCID iD with a correct check digit
      */
     @Override
     public boolean validateOrcid(String str) {
-        try {
-            // strip both https and http, although the specs state it should only have https
-            // see: https://support.orcid.org/hc/en-us/articles/360006897674-Structure-of-the-ORCID-Identifier
-            // - The ORCID iD is expressed as a https URI, i.e. the 16-digit identifier is preceded by "https://orcid.org/". A hyphen is inserted every 4 digits of the identifier to aid readability.
-            var uri = new URI(str);
-
-            if (uri.getHost() != null) {
-                // domain should be in the list
-                if (!orcidDomains.contains(uri.getHost())) {
-                    return false;
-                }
+        // both https and http are accepted, although the specs state it should only have https
+        // - The ORCID iD is expressed as a https URI, i.e. the 16-digit identifier is preceded by "https://orcid.org/". A hyphen is inserted every 4 digits of the identifier to aid readability.
+        var start = identifierStart(str, ORCID_DOMAINS, "");
+        return start >= 0 && validateMod11Two(str, start, false);
+    }
 
-                str = uri.getPath().substring(1);
-            }
+    @Override
+    public boolean validateIsni(String str) {
+        var start = identifierStart(str, ISNI_DOMAINS, ISNI_PATH_PREFIX);
+        return start >= 0 && validateMod11Two(str, start, true);
+    }
+
+    @Override
+    public List<String> findInvalid(IdentifierType type, Stream<String> identifiers) {
+        Predicate<String> validator;
+
+        switch (type) {
+            case DAI:
+                validator = this::validateDai;
+                break;
+            case ORCID:
+                validator = this::validateOrcid;
+                break;
+            case ISNI:
+                validator = this::validateIsni;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown identifier type: " + type);
         }
-        catch (URISyntaxException e) {
-            // it is not an uri, but that is not a problem
+
+        return identifiers
+            .peek(id -> log.debug("Validating if {} is a valid {}", id, type))
+            .filter(validator.negate())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the index at which the identifier starts: after "scheme://host/pathPrefix" if the string is a URI, else 0. Returns -1 if it is a URI on another
+     * host. Like the host check of the URI-based implementation before it, the host is compared case-sensitively.
+     */
+    private static int identifierStart(String str, List<String> domains, String pathPrefix) {
+        var schemeEnd = str.indexOf("://");
+
+        if (schemeEnd <= 0) {
+            return 0;
         }
 
-        str = str.replaceAll("-", "");
+        var hostStart = schemeEnd + 3;
+
+        for (var domain : domains) {
+            var hostEnd = hostStart + domain.length();
+
+            if (str.startsWith(domain, hostStart) && hostEnd < str.length() && str.charAt(hostEnd) == '/'
+                && str.startsWith(pathPrefix, hostEnd + 1)) {
+                return hostEnd + 1 + pathPrefix.length();
+            }
+        }
 
-        return validateMod11Two(str);
+        return -1;
     }
 
-    @Override
-    public boolean validateIsni(String str) {
-        try {
-            var uri = new URI(str);
+    /**
+     * ISO 7064 MOD 11-2, as used by ORCID and ISNI: 15 digits and a check character, with hyphens (and optionally whitespace) in between.
+     */
+    boolean validateMod11Two(String str, int start, boolean skipWhitespace) {
+        var total = 0;
+        var count = 0;
+        var actual = 0;
+
+        for (var i = start; i < str.length(); ++i) {
+            var c = str.charAt(i);
+
+            if (c == '-' || (skipWhitespace && Whitespace.isRegexWhitespace(c))) {
+                continue;
+            }
+
+            if (++count > MOD_11_2_LENGTH) {
+                return false;
+            }
 
-            if (uri.getHost() != null) {
-                // domain should be in the list
-                if (!isniDomains.contains(uri.getHost())) {
+            if (count == MOD_11_2_LENGTH) {
+                actual = c;
+            }
+            else {
+                var digit = digitValue(c);
+
+                if (digit < 0) {
                     return false;
                 }
 
-                str = uri.getPath().replaceFirst("/isni/", "");
+                // add the digit to the previous result and multiply it by 2
+                total = (total + digit) * 2;
             }
         }
-        catch (URISyntaxException e) {
-            // it is not an uri, but that is not a problem
-        }
 
-        str = str.replaceAll("[\\s-]", "");
-
-        return validateMod11Two(str);
-    }
-
-    boolean validateMod11Two(String str) {
-        if (str.length() != 16) {
+        if (count != MOD_11_2_LENGTH) {
             return false;
         }
 
-        var actual = str.charAt(str.length() - 1);
-        var sum = new StringBuilder(str).substring(0, str.length() - 1)
-            .chars()
-            // convert digit character to numerical value
-            .map(c -> c - 48)
-            // add the result to the previous result and multiply it by 2
-            .reduce(0, (i1, i2) -> (i1 + i2) * 2);
-
         // apply this calculation to the total
-        var check = (12 - (sum % 11)) % 11;
+        var check = (12 - (total % 11)) % 11;
+        return actual == checkCharacter(check);
+    }
 
-        // convert numerical value back to character
-        var expected = check == 10 ? 'X' : (char) (check + 48);
+    private static int digitValue(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
 
-        return expected == actual;
+    private static char checkCharacter(int check) {
+        return check == 10 ? 'X' : (char) ('0' + check);
     }
 }
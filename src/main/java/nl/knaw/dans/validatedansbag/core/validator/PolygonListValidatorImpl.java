@@ -15,19 +15,16 @@
  */
 package nl.knaw.dans.validatedansbag.core.validator;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 public class PolygonListValidatorImpl implements PolygonListValidator {
     @Override
     public PolygonValidationResult validatePolygonList(String polygons) {
-        var parts = polygons.split("\\s+");
+        var posList = PosList.scan(polygons);
 
         try {
             // each of these will throw an error if something is wrong
-            validateEvenSize(parts);
-            validateMinLength(parts);
-            validateEndEqualsBegin(parts);
+            validateEvenSize(posList);
+            validateMinLength(posList);
+            validateEndEqualsBegin(posList);
         }
         catch (PolygonValidationException e) {
             return PolygonValidationResult.invalid(e.getMessage());
@@ -36,33 +33,31 @@ public class PolygonListValidatorImpl implements PolygonListValidator {
         return PolygonValidationResult.valid();
     }
 
-    void validateEvenSize(String[] parts) throws PolygonValidationException {
-        if (parts.length % 2 != 0) {
+    void validateEvenSize(PosList posList) throws PolygonValidationException {
+        if (posList.size() % 2 != 0) {
             throw new PolygonValidationException(String.format(
-                "Found posList with odd number of values: %s. %s", parts.length, formatPosList(parts)
+                "Found posList with odd number of values: %s. %s", posList.size(), formatPosList(posList)
             ));
         }
     }
 
-    void validateMinLength(String[] parts) throws PolygonValidationException {
-        if (parts.length < 8) {
+    void validateMinLength(PosList posList) throws PolygonValidationException {
+        if (posList.size() < 8) {
             throw new PolygonValidationException(String.format(
-                "Found posList with too few values (fewer than 4 pairs). %s", formatPosList(parts)
+                "Found posList with too few values (fewer than 4 pairs). %s", formatPosList(posList)
             ));
         }
     }
 
-    void validateEndEqualsBegin(String[] parts) throws PolygonValidationException {
-        if (!parts[0].equals(parts[parts.length - 2]) || !parts[1].equals(parts[parts.length - 1])) {
+    void validateEndEqualsBegin(PosList posList) throws PolygonValidationException {
+        if (!posList.firstPairEqualsLastPair()) {
             throw new PolygonValidationException(String.format(
-                "Found posList with unequal first and last pairs. %s", formatPosList(parts)
+                "Found posList with unequal first and last pairs. %s", formatPosList(posList)
             ));
         }
     }
 
-    String formatPosList(String[] parts) {
-        return String.format("(Offending posList starts with: %s...)",
-            Arrays.stream(parts).limit(10).collect(Collectors.joining(", "))
-        );
+    String formatPosList(PosList posList) {
+        return String.format("(Offending posList starts with: %s...)", posList.preview());
     }
 }
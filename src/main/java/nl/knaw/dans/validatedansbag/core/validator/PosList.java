@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.validator;
+
+import nl.knaw.dans.validatedansbag.core.service.Whitespace;
+
+/**
+ * The whitespace separated values of a GML posList, scanned in one pass without splitting the text. Only the number of values and the positions of the
+ * first two and the last two values are kept; a preview of the first values is only built when it is needed for an error message.
+ */
+final class PosList {
+    static final int PREVIEW_SIZE = 10;
+
+    private final CharSequence text;
+    private int size;
+    // start and end (exclusive) of the first, second, second to last and last value
+    private final int[] first = new int[2];
+    private final int[] second = new int[2];
+    private final int[] secondToLast = new int[2];
+    private final int[] last = new int[2];
+
+    private PosList(CharSequence text) {
+        this.text = text;
+    }
+
+    static PosList scan(CharSequence text) {
+        var posList = new PosList(text);
+        var length = text.length();
+        var i = 0;
+
+        while (true) {
+            while (i < length && Whitespace.isRegexWhitespace(text.charAt(i))) {
+                ++i;
+            }
+
+            if (i == length) {
+                return posList;
+            }
+
+            var start = i;
+
+            while (i < length && !Whitespace.isRegexWhitespace(text.charAt(i))) {
+                ++i;
+            }
+
+            posList.add(start, i);
+        }
+    }
+
+    private void add(int start, int end) {
+        if (size == 0) {
+            set(first, start, end);
+        }
+        else if (size == 1) {
+            set(second, start, end);
+        }
+
+        set(secondToLast, last[0], last[1]);
+        set(last, start, end);
+        ++size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the first pair of values is textually equal to the last pair; false if there are fewer than two values
+     */
+    boolean firstPairEqualsLastPair() {
+        return size >= 2 && regionEquals(first, secondToLast) && regionEquals(second, last);
+    }
+
+    /**
+     * @return the first {@link #PREVIEW_SIZE} values, separated by commas
+     */
+    String preview() {
+        var preview = new StringBuilder();
+        var length = text.length();
+        var count = 0;
+        var i = 0;
+
+        while (count < PREVIEW_SIZE) {
+            while (i < length && Whitespace.isRegexWhitespace(text.charAt(i))) {
+                ++i;
+            }
+
+            if (i == length) {
+                break;
+            }
+
+            if (count++ > 0) {
+                preview.append(", ");
+            }
+
+            while (i < length && !Whitespace.isRegexWhitespace(text.charAt(i))) {
+                preview.append(text.charAt(i++));
+            }
+        }
+
+        return preview.toString();
+    }
+
+    private boolean regionEquals(int[] a, int[] b) {
+        var length = a[1] - a[0];
+
+        if (length != b[1] - b[0]) {
+            return false;
+        }
+
+        for (var i = 0; i < length; ++i) {
+            if (text.charAt(a[0] + i) != text.charAt(b[0] + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void set(int[] region, int start, int end) {
+        region[0] = start;
+        region[1] = end;
+    }
+}
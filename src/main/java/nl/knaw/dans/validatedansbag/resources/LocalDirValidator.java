@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import lombok.RequiredArgsConstructor;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
+import nl.knaw.dans.validatedansbag.core.service.RuleEngineService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Validates a bag on local disk, using the digests in the revalidation cache for the files that did not change since the bag was last validated.
+ */
+@RequiredArgsConstructor
+class LocalDirValidator {
+    private final RuleEngineService ruleEngineService;
+    private final RevalidationCache revalidationCache;
+
+    ValidateOkDto validate(String bagLocation, ValidationContext context) throws Exception {
+        var bagDir = Path.of(bagLocation);
+        var cacheSession = Files.isDirectory(bagDir) ? revalidationCache.open(bagDir) : null;
+
+        if (cacheSession != null) {
+            context.setPrecomputedDigests(cacheSession.getDigests());
+        }
+
+        var result = ruleEngineService.validateBag(bagDir, bagLocation, context);
+
+        if (cacheSession != null) {
+            cacheSession.save(context.getVerifiedDigests());
+        }
+
+        return result;
+    }
+}
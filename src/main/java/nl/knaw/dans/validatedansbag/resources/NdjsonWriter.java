@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes objects as newline-delimited JSON, flushing after every line so that the client sees it immediately. Lines may be written from several threads.
+ */
+class NdjsonWriter {
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final OutputStream output;
+    private final ObjectMapper objectMapper;
+
+    // not a synchronized method: a virtual thread blocked on I/O inside a monitor would pin its carrier thread
+    private final Lock lock = new ReentrantLock();
+
+    NdjsonWriter(OutputStream output, ObjectMapper objectMapper) {
+        this.output = output;
+        // the stream must stay open after each line
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    void write(Object line) throws IOException {
+        lock.lock();
+        try {
+            objectMapper.writeValue(output, line);
+            output.write('\n');
+            output.flush();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
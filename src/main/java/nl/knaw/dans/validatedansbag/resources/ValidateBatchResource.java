@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.core.BagNotFoundException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.report.BatchErrorDto;
+import nl.knaw.dans.validatedansbag.core.report.BatchValidateCommandDto;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
+import nl.knaw.dans.validatedansbag.core.service.RuleEngineService;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Validates many local bags in one request. The bags are validated on a pool that is shared by all batch requests, and the results are streamed back as
+ * newline-delimited JSON, one line per bag, in the order in which the validations finish.
+ */
+@Slf4j
+@Path("/validateBatch")
+@RequiredArgsConstructor
+public class ValidateBatchResource {
+    private final RuleEngineService ruleEngineService;
+    private final RevalidationCache revalidationCache;
+    private final ExecutorService executor;
+    // the number of bags of one request that are validated at the same time, so that one large batch does not starve the others
+    private final int maxBagsInProgress;
+    private final ObjectMapper objectMapper;
+
+    @Context
+    private UriInfo uriInfo;
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(NdjsonWriter.MEDIA_TYPE)
+    public Response validateBatchPost(BatchValidateCommandDto command) {
+        var bagLocations = getBagLocations(command);
+        var params = uriInfo.getQueryParameters();
+        // parse the options before the response is committed, so that invalid ones are still reported with 400
+        ValidationContextFactory.create(params);
+
+        StreamingOutput stream = output -> validateAll(bagLocations, params, output);
+        return Response.ok(stream, NdjsonWriter.MEDIA_TYPE).build();
+    }
+
+    private List<String> getBagLocations(BatchValidateCommandDto command) {
+        if (command == null || (command.getBagLocations() == null && command.getParentDirectory() == null)) {
+            throw new BadRequestException("Either bagLocations or parentDirectory is required");
+        }
+
+        var bagLocations = new ArrayList<String>();
+
+        if (command.getBagLocations() != null) {
+            bagLocations.addAll(command.getBagLocations());
+        }
+
+        if (command.getParentDirectory() != null) {
+            // Paths, because Path is the JAX-RS annotation in this class
+            var parent = Paths.get(command.getParentDirectory());
+
+            if (!Files.isDirectory(parent)) {
+                throw new BadRequestException(String.format("Parent directory '%s' does not exist or is not a directory", parent));
+            }
+
+            try (var children = Files.list(parent)) {
+                bagLocations.addAll(children
+                    .filter(Files::isDirectory)
+                    .map(String::valueOf)
+                    .sorted()
+                    .collect(Collectors.toList()));
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return bagLocations;
+    }
+
+    private void validateAll(List<String> bagLocations, MultivaluedMap<String, String> params, OutputStream output) throws IOException {
+        var writer = new NdjsonWriter(output, objectMapper);
+        var completionService = new ExecutorCompletionService<Object>(executor);
+        var pending = new LinkedList<>(bagLocations);
+        var running = new ArrayList<Future<Object>>();
+
+        log.info("Validating batch of {} bags", bagLocations.size());
+
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                while (!pending.isEmpty() && running.size() < maxBagsInProgress) {
+                    var bagLocation = pending.removeFirst();
+                    var context = ValidationContextFactory.create(params);
+                    running.add(completionService.submit(() -> validate(bagLocation, context)));
+                }
+
+                var done = completionService.take();
+                running.remove(done);
+                writer.write(done.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while validating batch", e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Unexpected error while validating batch", e.getCause());
+        }
+        finally {
+            // e.g. when the client went away
+            running.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private Object validate(String bagLocation, ValidationContext context) {
+        try {
+            return new LocalDirValidator(ruleEngineService, revalidationCache).validate(bagLocation, context);
+        }
+        catch (BagNotFoundException e) {
+            return new BatchErrorDto(bagLocation, e.getMessage());
+        }
+        catch (Exception e) {
+            log.error("Validation of {} in batch failed", bagLocation, e);
+            return new BatchErrorDto(bagLocation, e.getMessage());
+        }
+    }
+}
@@ -15,29 +15,47 @@
  */
 package nl.knaw.dans.validatedansbag.resources;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import nl.knaw.dans.validatedansbag.api.ValidateCommandDto;
 import nl.knaw.dans.validatedansbag.core.BagNotFoundException;
+import nl.knaw.dans.validatedansbag.core.ValidationCancelledException;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
 import nl.knaw.dans.validatedansbag.core.service.RuleEngineService;
 
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
-import java.nio.file.Path;
+import javax.ws.rs.core.UriInfo;
 
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class ValidateLocalDirApiResource implements ValidateLocalDirApi {
     private final RuleEngineService ruleEngineService;
+    private final RevalidationCache revalidationCache;
+    private final ObjectMapper objectMapper;
+
+    @Context
+    private UriInfo uriInfo;
 
     @Override
     public Response validateLocalDirPost(ValidateCommandDto validateCommandDto) {
+        var context = ValidationContextFactory.create(uriInfo);
+        var validator = new LocalDirValidator(ruleEngineService, revalidationCache);
+
+        if (ValidationContextFactory.isStreamRequested(uriInfo)) {
+            return ValidationEventStream.response(objectMapper, context, c -> validator.validate(validateCommandDto.getBagLocation(), c));
+        }
+
         try {
-            var result = ruleEngineService.validateBag(Path.of(validateCommandDto.getBagLocation()),
-                validateCommandDto.getBagLocation());
+            var result = validator.validate(validateCommandDto.getBagLocation(), context);
             return Response.ok(result).build();
         }
         catch (BagNotFoundException e) {
             return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
         }
+        catch (ValidationCancelledException e) {
+            return Response.status(Status.CONFLICT).entity(e.getMessage()).build();
+        }
         catch (Exception e) {
             throw new RuntimeException(e);
         }
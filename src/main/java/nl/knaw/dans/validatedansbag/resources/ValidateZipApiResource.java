@@ -15,32 +15,106 @@
  */
 package nl.knaw.dans.validatedansbag.resources;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.BagNotFoundException;
+import nl.knaw.dans.validatedansbag.core.ScratchSpaceExhaustedException;
+import nl.knaw.dans.validatedansbag.core.ValidationCancelledException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import nl.knaw.dans.validatedansbag.core.service.FileService;
 import nl.knaw.dans.validatedansbag.core.service.RuleEngineService;
+import nl.knaw.dans.validatedansbag.core.service.ScratchSpace;
 
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 
-@AllArgsConstructor
+@Slf4j
+@RequiredArgsConstructor
 public class ValidateZipApiResource implements ValidateZipApi {
+    private static final int RETRY_AFTER_SECONDS = 60;
+
     private final RuleEngineService ruleEngineService;
     private final FileService fileService;
+    private final ScratchSpace scratchSpace;
+    private final ObjectMapper objectMapper;
+
+    @Context
+    private UriInfo uriInfo;
 
     @Override
     public Response validateZipPost(File body) {
-        try (var inputStream = new FileInputStream(body)) {
-            var dir = fileService.extractZipFile(inputStream);
-            var bagDir = fileService.getFirstDirectory(dir);
-            if (bagDir.isEmpty()) {
-                return Response.status(Response.Status.BAD_REQUEST).entity("No bag directory found in zip file").build();
+        var streaming = false;
+
+        try {
+            var context = ValidationContextFactory.create(uriInfo);
+
+            if (ValidationContextFactory.isStreamRequested(uriInfo)) {
+                // the upload is needed until the stream is written
+                streaming = true;
+                return ValidationEventStream.response(objectMapper, context, c -> {
+                    try {
+                        return validateZip(body, c);
+                    }
+                    finally {
+                        deleteUpload(body);
+                    }
+                });
             }
-            var result = ruleEngineService.validateBag(bagDir.get(), "ZIP");
-            return Response.ok(result).build();
+
+            return Response.ok(validateZip(body, context)).build();
+        }
+        catch (BagNotFoundException e) {
+            return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        catch (ScratchSpaceExhaustedException e) {
+            return Response.status(Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).entity(e.getMessage()).build();
+        }
+        catch (ValidationCancelledException e) {
+            return Response.status(Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        catch (WebApplicationException e) {
+            throw e;
         }
         catch (Exception e) {
             throw new RuntimeException(e);
         }
+        finally {
+            if (!streaming) {
+                deleteUpload(body);
+            }
+        }
+    }
+
+    private ValidateOkDto validateZip(File body, ValidationContext context) throws Exception {
+        try (var extraction = scratchSpace.extractZipFile(body.toPath(), context.getProfile())) {
+            var bagDir = fileService.getFirstDirectory(extraction.getPath());
+
+            if (bagDir.isEmpty()) {
+                throw new BagNotFoundException("No bag directory found in zip file");
+            }
+
+            context.setPrecomputedDigests(extraction.getDigests());
+            context.setIncompleteBagProblems(extraction.getIncompleteBagProblems());
+            return ruleEngineService.validateBag(bagDir.get(), "ZIP", context);
+        }
+    }
+
+    // Jersey does not remove the temporary file that holds the request body
+    private void deleteUpload(File body) {
+        try {
+            Files.deleteIfExists(body.toPath());
+        }
+        catch (IOException e) {
+            log.warn("Could not delete uploaded file {}", body, e);
+        }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+/**
+ * Creates a {@link ValidationContext} from the optional query parameters that the validation endpoints accept on top of the API definition.
+ */
+class ValidationContextFactory {
+    static final String TIMINGS_PARAM = "timings";
+    static final String PROFILE_PARAM = "profile";
+    static final String STREAM_PARAM = "stream";
+
+    private ValidationContextFactory() {
+    }
+
+    static ValidationContext create(UriInfo uriInfo) {
+        return create(uriInfo != null ? uriInfo.getQueryParameters() : null);
+    }
+
+    static boolean isStreamRequested(UriInfo uriInfo) {
+        return uriInfo != null && Boolean.parseBoolean(uriInfo.getQueryParameters().getFirst(STREAM_PARAM));
+    }
+
+    static ValidationContext create(MultivaluedMap<String, String> params) {
+        var context = new ValidationContext();
+
+        if (params != null) {
+            context.setTimingsRequested(Boolean.parseBoolean(params.getFirst(TIMINGS_PARAM)));
+
+            if (params.containsKey(PROFILE_PARAM)) {
+                try {
+                    context.setProfile(ValidationProfile.fromParamValue(params.getFirst(PROFILE_PARAM)));
+                }
+                catch (IllegalArgumentException e) {
+                    throw new BadRequestException(e.getMessage());
+                }
+            }
+        }
+
+        return context;
+    }
+}
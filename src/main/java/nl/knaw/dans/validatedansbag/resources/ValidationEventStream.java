@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.engine.ChecksumProgress;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationListener;
+import nl.knaw.dans.validatedansbag.core.report.ValidationEventDto;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+
+/**
+ * Runs a validation while the response is written, streaming a line of NDJSON for every rule that completes and for the progress of the checksum verification,
+ * and finally a line with the result.
+ */
+@Slf4j
+class ValidationEventStream {
+    @FunctionalInterface
+    interface Validation {
+        ValidateOkDto run(ValidationContext context) throws Exception;
+    }
+
+    private ValidationEventStream() {
+    }
+
+    static Response response(ObjectMapper objectMapper, ValidationContext context, Validation validation) {
+        StreamingOutput stream = output -> {
+            var writer = new NdjsonWriter(output, objectMapper);
+            context.setListener(new StreamingListener(writer));
+
+            try {
+                writer.write(ValidationEventDto.result(validation.run(context)));
+            }
+            catch (IOException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                log.error("Streamed validation failed", e);
+                writer.write(ValidationEventDto.error(e.getMessage()));
+            }
+        };
+
+        return Response.ok(stream, NdjsonWriter.MEDIA_TYPE).build();
+    }
+
+    private static class StreamingListener implements ValidationListener {
+        private final NdjsonWriter writer;
+        private volatile boolean clientGone;
+
+        StreamingListener(NdjsonWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void ruleCompleted(String number, RuleResult result) {
+            write(ValidationEventDto.rule(number, result));
+        }
+
+        @Override
+        public void checksumProgress(ChecksumProgress progress) {
+            write(ValidationEventDto.checksumProgress(progress));
+        }
+
+        private void write(ValidationEventDto event) {
+            if (clientGone) {
+                return;
+            }
+
+            try {
+                writer.write(event);
+            }
+            catch (IOException e) {
+                // the validation itself must not fail because nobody is listening anymore
+                log.warn("Could not write validation event, client disconnected? {}", e.getMessage());
+                clientGone = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import nl.knaw.dans.lib.util.ruleengine.BagValidatorRule;
+import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ContentCachedRuleTest {
+    @TempDir
+    Path bagDir;
+
+    private final BagValidatorRule rule = Mockito.mock(BagValidatorRule.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(bagDir.resolve("metadata"));
+        Files.writeString(bagDir.resolve("metadata/dataset.xml"), "<ddm/>");
+        Mockito.when(rule.validate(any())).thenReturn(RuleResult.error("dataset.xml: Invalid DAIs: 123"));
+    }
+
+    private ContentCachedRule cachedRule(RuleResultCache cache) {
+        return new ContentCachedRule("3.1.3(a)", Path.of("metadata/dataset.xml"), rule, cache);
+    }
+
+    @Test
+    void validate_should_reuse_result_for_same_contents() throws Exception {
+        var cache = new RuleResultCache(10, "config");
+
+        var first = cachedRule(cache).validate(bagDir);
+        var second = cachedRule(cache).validate(bagDir);
+
+        assertThat(second).isSameAs(first);
+        verify(rule, times(1)).validate(any());
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void validate_should_run_rule_again_when_contents_change() throws Exception {
+        var cache = new RuleResultCache(10, "config");
+
+        cachedRule(cache).validate(bagDir);
+        Files.writeString(bagDir.resolve("metadata/dataset.xml"), "<ddm></ddm>");
+        cachedRule(cache).validate(bagDir);
+
+        verify(rule, times(2)).validate(any());
+    }
+
+    @Test
+    void validate_should_hash_file_larger_than_the_read_buffer() throws Exception {
+        var contents = new byte[200 * 1024 + 17];
+        new Random(1).nextBytes(contents);
+        Files.write(bagDir.resolve("metadata/dataset.xml"), contents);
+        var cache = new RuleResultCache(10, "config");
+        var context = new ValidationContext();
+
+        try (var ignored = context.activate()) {
+            cachedRule(cache).validate(bagDir);
+        }
+
+        assertThat(cache.get("3.1.3(a)", RuleResultCache.sha256(contents))).isPresent();
+        assertThat(context.getBytesRead()).isEqualTo(contents.length);
+    }
+
+    @Test
+    void cache_should_evict_least_recently_used_results() {
+        var cache = new RuleResultCache(2, "config");
+        cache.put("3.1.1", "a", RuleResult.ok());
+        cache.put("3.1.1", "b", RuleResult.ok());
+        cache.get("3.1.1", "a");
+        cache.put("3.1.1", "c", RuleResult.ok());
+
+        assertThat(cache.get("3.1.1", "a")).isPresent();
+        assertThat(cache.get("3.1.1", "b")).isEmpty();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void fingerprint_should_not_depend_on_order() {
+        assertThat(RuleResultCache.fingerprint(Map.of("a", List.of("x", "y"), "b", "z")))
+            .isEqualTo(RuleResultCache.fingerprint(Map.of("b", "z", "a", List.of("y", "x"))));
+        assertThat(RuleResultCache.fingerprint(Map.of("a", "x"))).isNotEqualTo(RuleResultCache.fingerprint(Map.of("a", "y")));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import nl.knaw.dans.validatedansbag.core.ValidationCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ValidationRegistryTest {
+
+    @Test
+    void register_should_list_validation_until_closed() {
+        var registry = new ValidationRegistry();
+        var context = new ValidationContext();
+        context.setCurrentRule("1.1.1");
+        context.addBytesRead(100);
+
+        try (var running = registry.register(Path.of("bag"), context)) {
+            assertThat(registry.getRunning()).containsExactly(running);
+            assertThat(running.getCurrentRule()).isEqualTo("1.1.1");
+            assertThat(running.getBytesRead()).isEqualTo(100);
+        }
+
+        assertThat(registry.getRunning()).isEmpty();
+    }
+
+    @Test
+    void cancel_should_return_false_for_unknown_id() {
+        assertThat(new ValidationRegistry().cancel("no-such-id")).isFalse();
+    }
+
+    @Test
+    void cancel_should_interrupt_blocked_worker_and_set_flag() throws Exception {
+        var registry = new ValidationRegistry();
+        var context = new ValidationContext();
+        var started = new CountDownLatch(1);
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            var future = executor.submit(() -> {
+                try (var ignored = registry.register(Path.of("bag"), context)) {
+                    started.countDown();
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    return false;
+                }
+                catch (InterruptedException e) {
+                    return true;
+                }
+            });
+
+            started.await();
+            assertThat(registry.cancel(registry.getRunning().get(0).getId())).isTrue();
+            assertThat(future.get(10, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(context::checkCancelled).isInstanceOf(ValidationCancelledException.class);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
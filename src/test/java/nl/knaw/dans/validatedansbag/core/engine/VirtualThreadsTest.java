@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VirtualThreadsTest {
+
+    @Test
+    void newThreadPerTaskExecutor_should_run_tasks_on_named_threads_or_fail_on_old_jvm() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("test-"))
+                .isInstanceOf(UnsupportedOperationException.class);
+            return;
+        }
+
+        var executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+
+        try {
+            var name = executor.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+            assertThat(name).startsWith("test-");
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void limitConcurrency_should_run_at_most_the_given_number_of_tasks_at_the_same_time() throws Exception {
+        var executor = VirtualThreads.limitConcurrency(Executors.newCachedThreadPool(), 2);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var futures = new ArrayList<Future<?>>();
+
+        try {
+            for (var i = 0; i < 6; ++i) {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    release.await();
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+
+            // give the tasks over the limit the chance to start, if the limit did not hold
+            Thread.sleep(200);
+            assertThat(running.get()).isEqualTo(2);
+            release.countDown();
+
+            for (var future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(maxRunning.get()).isEqualTo(2);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void limitConcurrency_should_reject_a_limit_below_one() {
+        assertThatThrownBy(() -> VirtualThreads.limitConcurrency(Executors.newCachedThreadPool(), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -20,52 +20,39 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.xml.sax.SAXParseException;
 
-import javax.xml.transform.Source;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class BagFileConformsToXmlSchemaTest extends RuleTestFixture {
     @Test
     void should_return_SUCCESS_status_if_file_validates_with_xsd() throws Exception {
+        Mockito.doReturn(List.of())
+            .when(xmlReader).validateXmlFile(Path.of("bagdir/metadata/dataset.xml"), "dataset.xml");
 
-        var xml = """
-            <?xml version="1.0" encoding="UTF-8" standalone="no"?>
-            <ddm:DDM xmlns:ddm="http://schemas.dans.knaw.nl/dataset/ddm-v2/" xmlns="http://easy.dans.knaw.nl/schemas/bag/metadata/files/" xmlns:abr="http://www.den.nl/standaard/166/Archeologisch-Basisregister/" xmlns:dc="http://purl.org/dc/elements/1.1/" xmlns:dcterms="http://purl.org/dc/terms/" xmlns:dcx-dai="http://easy.dans.knaw.nl/schemas/dcx/dai/" xmlns:dcx-gml="http://easy.dans.knaw.nl/schemas/dcx/gml/" xmlns:id-type="http://easy.dans.knaw.nl/schemas/vocab/identifier-type/" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance">
-                <ddm:profile>
-                    <dc:title>PAN-00008136 - knobbed sickle</dc:title>
-                </ddm:profile>
-            </ddm:DDM>
-            """;
-
-        Mockito.doReturn(xml.getBytes(StandardCharsets.UTF_8)).when(fileService).readFileContents(Mockito.any());
-        Mockito.doReturn(new ArrayList<SAXParseException>())
-            .when(xmlSchemaValidator).validateDocument(Mockito.any(Source.class), Mockito.anyString());
-
-        var result = new BagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), fileService, "ddm", xmlSchemaValidator).validate(Path.of("bagdir"));
+        var result = new BagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), xmlReader, "dataset.xml").validate(Path.of("bagdir"));
         assertEquals(RuleResult.Status.SUCCESS, result.getStatus());
     }
 
     @Test
     void should_return_ERROR_status_when_file_does_not_validate_with_xsd() throws Exception {
+        Mockito.doReturn(List.of(new SAXParseException("cvc-complex-type.2.4.b: The content of element 'ddm:profile' is not complete.", null, null, 3, 19)))
+            .when(xmlReader).validateXmlFile(Path.of("bagdir/metadata/dataset.xml"), "dataset.xml");
 
-        var xml = """
-            <?xml version="1.0" encoding="UTF-8" standalone="no"?>
-            <ddm:DDM xmlns:ddm="http://schemas.dans.knaw.nl/dataset/ddm-v2/" xmlns="http://easy.dans.knaw.nl/schemas/bag/metadata/files/" xmlns:abr="http://www.den.nl/standaard/166/Archeologisch-Basisregister/" xmlns:dc="http://purl.org/dc/elements/1.1/" xmlns:dcterms="http://purl.org/dc/terms/" xmlns:dcx-dai="http://easy.dans.knaw.nl/schemas/dcx/dai/" xmlns:dcx-gml="http://easy.dans.knaw.nl/schemas/dcx/gml/" xmlns:id-type="http://easy.dans.knaw.nl/schemas/vocab/identifier-type/" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance">
-                <ddm:profile>
-                    <dcterms:description xml:lang="en">This find is registered at Portable Antiquities of the Netherlands with number PAN-00008136</dcterms:description>
-                </ddm:profile>
-            </ddm:DDM>
-            """;
+        var result = new BagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), xmlReader, "dataset.xml").validate(Path.of("bagdir"));
+        assertEquals(RuleResult.Status.ERROR, result.getStatus());
+        assertThat(result.getErrorMessages())
+            .containsExactly("metadata/dataset.xml does not conform to dataset.xml: \n - line 3, column 19: cvc-complex-type.2.4.b: The content of element 'ddm:profile' is not complete.");
+    }
 
-        Mockito.doReturn(xml.getBytes(StandardCharsets.UTF_8)).when(fileService).readFileContents(Mockito.any());
-        Mockito.doReturn(List.of(new SAXParseException("msg", null)))
-            .when(xmlSchemaValidator).validateDocument(Mockito.any(Source.class), Mockito.anyString());
+    @Test
+    void should_return_ERROR_status_when_file_is_not_well_formed() throws Exception {
+        Mockito.doThrow(new SAXParseException("XML document structures must start and end within the same entity.", null))
+            .when(xmlReader).validateXmlFile(Path.of("bagdir/metadata/dataset.xml"), "dataset.xml");
 
-        var result = new BagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), fileService, "ddm", xmlSchemaValidator).validate(Path.of("bagdir"));
+        var result = new BagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), xmlReader, "dataset.xml").validate(Path.of("bagdir"));
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
-}
\ No newline at end of file
+}
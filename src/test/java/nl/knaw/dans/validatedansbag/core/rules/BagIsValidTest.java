@@ -18,10 +18,12 @@ package nl.knaw.dans.validatedansbag.core.rules;
 import gov.loc.repository.bagit.exceptions.InvalidBagitFileFormatException;
 
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.core.BagNotCompleteException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -43,4 +45,15 @@ public class BagIsValidTest extends RuleTestFixture {
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
 
+    @Test
+    void should_return_ERROR_with_all_problems_on_incomplete_bag() throws Exception {
+        Mockito.doThrow(new BagNotCompleteException(List.of("1 file(s) listed in manifest-sha1.txt but not present in the bag: data/c.txt",
+                "1 file(s) present in the payload directory but not listed in manifest-sha1.txt: data/b.txt")))
+                .when(bagItMetadataReader).verifyBag(Mockito.any());
+
+        var result = new BagIsValid(bagItMetadataReader).validate(Path.of("testpath"));
+        assertEquals(RuleResult.Status.ERROR, result.getStatus());
+        assertEquals(List.of("Bag is not valid: 1 file(s) listed in manifest-sha1.txt but not present in the bag: data/c.txt; "
+                + "1 file(s) present in the payload directory but not listed in manifest-sha1.txt: data/b.txt"), result.getErrorMessages());
+    }
 }
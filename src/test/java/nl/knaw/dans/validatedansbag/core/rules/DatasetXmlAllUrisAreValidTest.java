@@ -22,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -151,4 +152,31 @@ public class DatasetXmlAllUrisAreValidTest extends RuleTestFixture {
         assertEquals(6, result.getErrorMessages().size());
     }
 
+    @Test
+    void should_report_an_invalid_uri_only_once() throws Exception {
+        var xml = """
+            <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+            <ddm:DDM xmlns:ddm="http://schemas.dans.knaw.nl/dataset/ddm-v2/" xmlns:dcterms="http://purl.org/dc/terms/" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance">
+                <ddm:dcmiMetadata>
+                    <ddm:references scheme="URL" href="xttp://abc.def">xttp://abc.def</ddm:references>
+                    <dcterms:license xsi:type="dcterms:URI" scheme="URL">ettp://creativecommons.org/licenses/by-nc-sa/4.0/</dcterms:license>
+                    <dcterms:license xsi:type="dcterms:URI">ettp://creativecommons.org/licenses/by-nc-sa/4.0/</dcterms:license>
+                    <ddm:references scheme="URL">not a uri</ddm:references>
+                </ddm:dcmiMetadata>
+            </ddm:DDM>
+            """;
+
+        var document = parseXmlString(xml);
+        var reader = Mockito.spy(new XmlReaderImpl());
+
+        Mockito.doReturn(document).when(reader).readXmlFile(Mockito.any());
+
+        var result = new DatasetXmlAllUrlsAreValid(reader).validate(Path.of("bagdir"));
+        assertEquals(RuleResult.Status.ERROR, result.getStatus());
+        assertEquals(List.of(
+            "dataset.xml: protocol 'xttp' in uri 'xttp://abc.def' is not one of the accepted protocols [http, https]",
+            "dataset.xml: protocol 'ettp' in uri 'ettp://creativecommons.org/licenses/by-nc-sa/4.0/' is not one of the accepted protocols [http, https]",
+            "dataset.xml: 'not a uri' is not a valid uri"
+        ), result.getErrorMessages());
+    }
 }
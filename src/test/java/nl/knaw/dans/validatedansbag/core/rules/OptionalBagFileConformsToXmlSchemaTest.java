@@ -17,13 +17,10 @@ package nl.knaw.dans.validatedansbag.core.rules;
 
 
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
-import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.xml.sax.SAXParseException;
 
-import javax.xml.transform.Source;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -33,30 +30,19 @@ public class OptionalBagFileConformsToXmlSchemaTest extends RuleTestFixture {
 
     @Test
     void should_return_ERROR_status_if_file_exists_but_does_not_validate() throws Exception {
-        var xml = """
-            <?xml version="1.0" encoding="UTF-8" standalone="no"?>
-            <ddm:DDM xmlns:ddm="http://schemas.dans.knaw.nl/dataset/ddm-v2/" xmlns="http://easy.dans.knaw.nl/schemas/bag/metadata/files/" xmlns:abr="http://www.den.nl/standaard/166/Archeologisch-Basisregister/" xmlns:dc="http://purl.org/dc/elements/1.1/" xmlns:dcterms="http://purl.org/dc/terms/" xmlns:dcx-dai="http://easy.dans.knaw.nl/schemas/dcx/dai/" xmlns:dcx-gml="http://easy.dans.knaw.nl/schemas/dcx/gml/" xmlns:id-type="http://easy.dans.knaw.nl/schemas/vocab/identifier-type/" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance">
-                <ddm:profile>
-                    <dcterms:description xml:lang="en">This find is registered at Portable Antiquities of the Netherlands with number PAN-00008136</dcterms:description>
-                </ddm:profile>
-            </ddm:DDM>
-            """;
-
-        Mockito.doReturn(xml.getBytes(StandardCharsets.UTF_8)).when(fileService).readFileContents(Path.of("bagdir/metadata/dataset.xml"));
-
         Mockito.doReturn(true).when(fileService).exists(Path.of("bagdir/metadata/dataset.xml"));
         Mockito.doReturn(List.of(new SAXParseException("msg", null)))
-                .when(xmlSchemaValidator).validateDocument(Mockito.any(Source.class), Mockito.anyString());
+                .when(xmlReader).validateXmlFile(Path.of("bagdir/metadata/dataset.xml"), "dataset.xml");
 
-        var result = new OptionalBagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), "ddm", xmlSchemaValidator, fileService).validate(Path.of("bagdir"));
+        var result = new OptionalBagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"), "dataset.xml", xmlReader, fileService).validate(Path.of("bagdir"));
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
 
     @Test
     void should_return_SKIP_DEPENDENCIES_status_if_file_does_not_exist() throws Exception {
         Mockito.doReturn(false).when(fileService).exists(Path.of("bagdir/metadata/dataset.xml"));
-        var result = new OptionalBagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"),  "ddm", xmlSchemaValidator, fileService).validate(Path.of("bagdir"));
+        var result = new OptionalBagFileConformsToXmlSchema(Path.of("metadata/dataset.xml"),  "dataset.xml", xmlReader, fileService).validate(Path.of("bagdir"));
         assertEquals(RuleResult.Status.SKIP_DEPENDENCIES, result.getStatus());
-
+        Mockito.verifyNoInteractions(xmlReader);
     }
 }
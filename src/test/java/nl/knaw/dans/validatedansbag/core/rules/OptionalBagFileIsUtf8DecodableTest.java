@@ -17,12 +17,13 @@ package nl.knaw.dans.validatedansbag.core.rules;
 
 
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
+import nl.knaw.dans.validatedansbag.core.service.Utf8Validator;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
-import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -31,7 +32,7 @@ public class OptionalBagFileIsUtf8DecodableTest extends RuleTestFixture {
     @Test
     void should_return_SUCCESS_when_file_is_successfully_read() throws Exception {
         Mockito.when(fileService.exists(Mockito.any())).thenReturn(true);
-        Mockito.when(fileService.readFileContents(Mockito.any(), Mockito.any())).thenReturn(CharBuffer.allocate(1));
+        Mockito.when(fileService.findInvalidUtf8(Mockito.any())).thenReturn(Optional.empty());
 
         var result = new OptionalBagFileIsUtf8Decodable(Path.of("somefile.txt"), fileService).validate(Path.of("bagdir"));
 
@@ -48,13 +49,14 @@ public class OptionalBagFileIsUtf8DecodableTest extends RuleTestFixture {
     }
 
     @Test
-    void should_return_ERROR_when_reading_file_throws_charencoding_exception() throws Exception {
+    void should_return_ERROR_with_position_when_file_is_not_valid_utf8() throws Exception {
         Mockito.when(fileService.exists(Mockito.any())).thenReturn(true);
-        Mockito.when(fileService.readFileContents(Mockito.any(), Mockito.any()))
-                .thenThrow(new CharacterCodingException());
+        Mockito.when(fileService.findInvalidUtf8(Mockito.any()))
+                .thenReturn(Optional.of(new Utf8Validator.InvalidSequence(12, 2)));
 
         var result = new OptionalBagFileIsUtf8Decodable(Path.of("somefile.txt"), fileService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
+        assertEquals(List.of("Input not valid UTF-8: invalid byte sequence at offset 12 (line 2)"), result.getErrorMessages());
     }
 }
@@ -18,11 +18,13 @@ package nl.knaw.dans.validatedansbag.core.rules;
 
 import nl.knaw.dans.lib.util.ruleengine.RuleResult;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsService;
+import nl.knaw.dans.validatedansbag.core.service.PayloadListing;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -38,11 +40,11 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         Path.of("data/2.txt")
                 ));
 
-        Mockito.when(fileService.getAllFiles(Mockito.any()))
-                .thenReturn(List.of(
-                        Path.of("bagdir/data/a.txt"),
-                        Path.of("bagdir/data/b.txt")
-                ));
+        Mockito.when(bagItMetadataReader.getPayloadListing(Mockito.any()))
+                .thenReturn(new PayloadListing(Set.of(
+                        Path.of("data/a.txt"),
+                        Path.of("data/b.txt")
+                ), List.of()));
 
         Mockito.when(originalFilepathsService.getMapping(Mockito.any()))
                 .thenReturn(List.of(
@@ -50,7 +52,7 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         new OriginalFilepathsService.OriginalFilePathItem(Path.of("data/2.txt"), Path.of("data/b.txt"))
                 ));
 
-        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, fileService, filesXmlService).validate(Path.of("bagdir"));
+        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, bagItMetadataReader, filesXmlService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.SUCCESS, result.getStatus());
     }
@@ -64,11 +66,11 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         Path.of("data/2.txt")
                 ));
 
-        Mockito.when(fileService.getAllFiles(Mockito.any()))
-                .thenReturn(List.of(
-                        Path.of("bagdir/data/a.txt"),
-                        Path.of("bagdir/data/b.txt")
-                ));
+        Mockito.when(bagItMetadataReader.getPayloadListing(Mockito.any()))
+                .thenReturn(new PayloadListing(Set.of(
+                        Path.of("data/a.txt"),
+                        Path.of("data/b.txt")
+                ), List.of()));
 
         Mockito.when(originalFilepathsService.getMapping(Mockito.any()))
                 .thenReturn(List.of(
@@ -76,7 +78,7 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         new OriginalFilepathsService.OriginalFilePathItem(Path.of("data/2.txt"), Path.of("data/c.txt")) // this one is wrong
                 ));
 
-        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, fileService, filesXmlService).validate(Path.of("bagdir"));
+        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, bagItMetadataReader, filesXmlService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
@@ -90,11 +92,11 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         Path.of("data/2.txt")
                 ));
 
-        Mockito.when(fileService.getAllFiles(Mockito.any()))
-                .thenReturn(List.of(
-                        Path.of("bagdir/data/a.txt"),
-                        Path.of("bagdir/data/b.txt")
-                ));
+        Mockito.when(bagItMetadataReader.getPayloadListing(Mockito.any()))
+                .thenReturn(new PayloadListing(Set.of(
+                        Path.of("data/a.txt"),
+                        Path.of("data/b.txt")
+                ), List.of()));
 
         Mockito.when(originalFilepathsService.getMapping(Mockito.any()))
                 .thenReturn(List.of(
@@ -102,7 +104,7 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         new OriginalFilepathsService.OriginalFilePathItem(Path.of("data/2.txt"), Path.of("data/b.txt"))
                 ));
 
-        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, fileService, filesXmlService).validate(Path.of("bagdir"));
+        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, bagItMetadataReader, filesXmlService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
@@ -115,10 +117,10 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         Path.of("data/1.txt")
                 ));
 
-        Mockito.when(fileService.getAllFiles(Mockito.any()))
-                .thenReturn(List.of(
-                        Path.of("bagdir/data/a.txt")
-                ));
+        Mockito.when(bagItMetadataReader.getPayloadListing(Mockito.any()))
+                .thenReturn(new PayloadListing(Set.of(
+                        Path.of("data/a.txt")
+                ), List.of()));
 
         Mockito.when(originalFilepathsService.getMapping(Mockito.any()))
                 .thenReturn(List.of(
@@ -126,7 +128,7 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
                         new OriginalFilepathsService.OriginalFilePathItem(Path.of("data/2.txt"), Path.of("data/b.txt"))
                 ));
 
-        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, fileService, filesXmlService).validate(Path.of("bagdir"));
+        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, bagItMetadataReader, filesXmlService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.ERROR, result.getStatus());
     }
@@ -134,7 +136,7 @@ public class OptionalOriginalFilePathsIsCompleteTest extends RuleTestFixture {
     @Test
     void should_return_SKIP_DEPENDENCIES_when_no_original_filepaths_present() throws Exception {
         Mockito.when(originalFilepathsService.exists(Mockito.any())).thenReturn(false);
-        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, fileService, filesXmlService).validate(Path.of("bagdir"));
+        var result = new OptionalOriginalFilePathsIsComplete(originalFilepathsService, bagItMetadataReader, filesXmlService).validate(Path.of("bagdir"));
 
         assertEquals(RuleResult.Status.SKIP_DEPENDENCIES, result.getStatus());
     }
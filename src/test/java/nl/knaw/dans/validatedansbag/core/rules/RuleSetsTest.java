@@ -15,7 +15,6 @@
  */
 package nl.knaw.dans.validatedansbag.core.rules;
 
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.RuleEngineImpl;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.DataverseService;
@@ -42,8 +41,6 @@ public class RuleSetsTest {
 
     private static final BagItMetadataReader bagItMetadataReader = Mockito.mock(BagItMetadataReader.class);
 
-    private static final XmlSchemaValidator xmlSchemaValidator = Mockito.mock(XmlSchemaValidator.class);
-
     private static final LicenseValidator licenseValidator = Mockito.mock(LicenseValidator.class);
     private static final XmlReader xmlReader = Mockito.mock(XmlReader.class);
 
@@ -69,7 +66,7 @@ public class RuleSetsTest {
     public void dataStationsRuleSet_should_be_consistent() throws Exception {
         var ruleSets = new RuleSets(
                 dataverseService, fileService, filesXmlService, originalFilepathsService, xmlReader,
-                bagItMetadataReader,  xmlSchemaValidator, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
+                bagItMetadataReader, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
             VAULT_CATALOG_CLIENT, Map.of(), Map.of());
         new RuleEngineImpl().validateRuleSet(ruleSets.getDataStationSet());
         assertTrue(true); // if we get here, the rule set is consistent
@@ -79,7 +76,7 @@ public class RuleSetsTest {
     public void vaasRuleSet_should_be_consistent() throws Exception {
         var ruleSets = new RuleSets(
                 dataverseService, fileService, filesXmlService, originalFilepathsService, xmlReader,
-                bagItMetadataReader,  xmlSchemaValidator, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
+                bagItMetadataReader, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
             VAULT_CATALOG_CLIENT, Map.of(), Map.of());
         new RuleEngineImpl().validateRuleSet(ruleSets.getVaasSet());
         assertTrue(true); // if we get here, the rule set is consistent
@@ -18,7 +18,6 @@ package nl.knaw.dans.validatedansbag.core.rules;
 import nl.knaw.dans.lib.dataverse.DataverseException;
 import nl.knaw.dans.lib.dataverse.model.dataset.DatasetLatestVersion;
 import nl.knaw.dans.lib.dataverse.model.search.SearchResult;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReader;
 import nl.knaw.dans.validatedansbag.core.service.DataverseService;
 import nl.knaw.dans.validatedansbag.core.service.FileService;
@@ -53,7 +52,6 @@ public class RuleTestFixture {
 
     protected final LicenseValidator licenseValidator = new LicenseValidatorImpl(dataverseService);
     protected final FilesXmlService filesXmlService = Mockito.mock(FilesXmlService.class);
-    protected final XmlSchemaValidator xmlSchemaValidator = Mockito.mock(XmlSchemaValidator.class);
 
     @AfterEach
     void afterEach() {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import nl.knaw.dans.validatedansbag.core.BagNotCompleteException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BagItMetadataReaderImplTest {
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void verifyBag_should_report_the_problems_found_in_the_zip_file_without_reading_the_bag() {
+        var context = new ValidationContext();
+        context.setIncompleteBagProblems(List.of("1 file(s) listed in manifest-sha1.txt but not present in the ZIP file: data/c.txt"));
+
+        try (var ignored = context.activate()) {
+            // there is no bag in the directory at all, so anything else than the ZIP problems would be a different exception
+            assertThatThrownBy(() -> new BagItMetadataReaderImpl(new ChecksumVerifier(executor)).verifyBag(tempDir))
+                .isInstanceOf(BagNotCompleteException.class)
+                .hasMessage("1 file(s) listed in manifest-sha1.txt but not present in the ZIP file: data/c.txt");
+        }
+    }
+}
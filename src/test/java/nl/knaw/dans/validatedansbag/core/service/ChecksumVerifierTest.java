@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import gov.loc.repository.bagit.exceptions.CorruptChecksumException;
+import gov.loc.repository.bagit.reader.BagReader;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+import nl.knaw.dans.validatedansbag.resources.util.SyntheticBagGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChecksumVerifierTest {
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void verify_should_hash_every_file_once() throws Exception {
+        var bag = new BagReader().read(SyntheticBagGenerator.builder().files(3).build().generate(tempDir.resolve("bag")));
+        var context = new ValidationContext();
+
+        try (var ignored = context.activate()) {
+            new ChecksumVerifier(executor).verify(bag);
+        }
+
+        // 3 payload files plus the tag files listed in the tag manifest
+        var tagFiles = bag.getTagManifests().iterator().next().getFileToChecksumMap().size();
+        assertThat(context.getFilesHashed()).isEqualTo(3 + tagFiles);
+    }
+
+    @Test
+    void verify_should_count_the_bytes_of_every_file_read() throws Exception {
+        var bag = new BagReader().read(SyntheticBagGenerator.builder()
+            .files(2)
+            .payloadSizes(SyntheticBagGenerator.PayloadSizes.fixed(200 * 1024 + 17))
+            .build()
+            .generate(tempDir.resolve("bag")));
+        var files = new HashSet<Path>();
+        bag.getPayLoadManifests().forEach(manifest -> files.addAll(manifest.getFileToChecksumMap().keySet()));
+        bag.getTagManifests().forEach(manifest -> files.addAll(manifest.getFileToChecksumMap().keySet()));
+        var expected = 0L;
+
+        for (var file : files) {
+            expected += Files.size(file);
+        }
+
+        var context = new ValidationContext();
+
+        try (var ignored = context.activate()) {
+            new ChecksumVerifier(executor).verify(bag);
+        }
+
+        assertThat(context.getBytesRead()).isEqualTo(expected);
+    }
+
+    @Test
+    void verify_should_use_precomputed_digests() throws Exception {
+        var bag = new BagReader().read(SyntheticBagGenerator.builder().files(3).build().generate(tempDir.resolve("bag")));
+        var digests = new FileDigests();
+
+        for (var manifest : bag.getPayLoadManifests()) {
+            manifest.getFileToChecksumMap().forEach((file, checksum) -> digests.put(file, manifest.getAlgorithm().getBagitName(), checksum));
+        }
+
+        var context = new ValidationContext();
+        context.setPrecomputedDigests(digests);
+
+        try (var ignored = context.activate()) {
+            new ChecksumVerifier(executor).verify(bag);
+        }
+
+        // only the tag files are read
+        var tagFiles = bag.getTagManifests().iterator().next().getFileToChecksumMap().size();
+        assertThat(context.getFilesHashed()).isEqualTo(tagFiles);
+    }
+
+    @Test
+    void verify_should_throw_on_corrupt_checksum() throws Exception {
+        var bagDir = SyntheticBagGenerator.builder()
+            .files(3)
+            .faults(Set.of(SyntheticBagGenerator.Fault.CORRUPT_PAYLOAD_CHECKSUM))
+            .build()
+            .generate(tempDir.resolve("bag"));
+        var bag = new BagReader().read(bagDir);
+
+        assertThatThrownBy(() -> new ChecksumVerifier(executor).verify(bag))
+            .isInstanceOf(CorruptChecksumException.class)
+            .hasMessageContaining("is suppose to have a");
+    }
+
+    @Test
+    void verify_should_throw_when_a_precomputed_digest_does_not_match() throws Exception {
+        var bag = new BagReader().read(SyntheticBagGenerator.builder().files(1).build().generate(tempDir.resolve("bag")));
+        var manifest = bag.getPayLoadManifests().iterator().next();
+        var file = manifest.getFileToChecksumMap().keySet().iterator().next();
+        var digests = new FileDigests();
+        digests.put(file, manifest.getAlgorithm().getBagitName(), "0000000000000000000000000000000000000000");
+        var context = new ValidationContext();
+        context.setPrecomputedDigests(digests);
+
+        try (var ignored = context.activate()) {
+            assertThatThrownBy(() -> new ChecksumVerifier(executor).verify(bag))
+                .isInstanceOf(CorruptChecksumException.class);
+        }
+    }
+
+    @Test
+    void verify_should_not_read_payload_in_metadata_only_profile() throws Exception {
+        var bagDir = SyntheticBagGenerator.builder()
+            .files(3)
+            .faults(Set.of(SyntheticBagGenerator.Fault.CORRUPT_PAYLOAD_CHECKSUM))
+            .build()
+            .generate(tempDir.resolve("bag"));
+        var bag = new BagReader().read(bagDir);
+        var context = new ValidationContext();
+        context.setProfile(ValidationProfile.METADATA_ONLY);
+
+        try (var ignored = context.activate()) {
+            new ChecksumVerifier(executor).verify(bag);
+        }
+
+        var tagFiles = bag.getTagManifests().iterator().next().getFileToChecksumMap().size();
+        assertThat(context.getFilesHashed()).isEqualTo(tagFiles);
+    }
+}
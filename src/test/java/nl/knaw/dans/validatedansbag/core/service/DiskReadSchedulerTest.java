@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiskReadSchedulerTest {
+    @TempDir
+    Path tempDir;
+
+    // acquires the sizes one after another, waiting the delay in between, while another file is being read
+    private List<Long> acquireOrder(DiskReadScheduler.Lane lane, List<Long> sizes, long delayMillis) throws Exception {
+        var order = Collections.synchronizedList(new ArrayList<Long>());
+        var executor = Executors.newFixedThreadPool(sizes.size());
+
+        try {
+            var first = lane.acquire(tempDir.resolve("first"), 1);
+            var futures = new ArrayList<Future<?>>();
+
+            for (var size : sizes) {
+                var queued = new CountDownLatch(1);
+                futures.add(executor.submit(() -> {
+                    queued.countDown();
+                    try (var ignored = lane.acquire(tempDir.resolve("file-" + size), size)) {
+                        order.add(size);
+                    }
+                    return null;
+                }));
+                queued.await();
+                // give the task time to start waiting
+                Thread.sleep(delayMillis);
+            }
+
+            first.close();
+
+            for (var future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            return order;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void acquire_should_let_larger_file_that_arrives_shortly_after_go_first() throws Exception {
+        var lane = new DiskReadScheduler(1, 0).getLane(tempDir);
+
+        assertThat(acquireOrder(lane, List.of(10L, 1L << 30), 100)).containsExactly(1L << 30, 10L);
+    }
+
+    @Test
+    void acquire_should_not_let_larger_file_overtake_smaller_file_that_waited_long_enough() throws Exception {
+        var lane = new DiskReadScheduler(1, 0).getLane(tempDir);
+
+        assertThat(acquireOrder(lane, List.of(10L, 1L << 30), 600)).containsExactly(10L, 1L << 30);
+    }
+
+    @Test
+    void acquire_should_not_look_up_the_size_if_the_file_does_not_have_to_wait() throws Exception {
+        var lane = new DiskReadScheduler(1, 0).getLane(tempDir);
+
+        try (var ignored = lane.acquire(tempDir.resolve("does-not-exist"))) {
+            assertThatThrownBy(() -> lane.acquire(tempDir.resolve("does-not-exist")))
+                .isInstanceOf(NoSuchFileException.class);
+        }
+    }
+
+    @Test
+    void acquire_should_not_limit_readers_if_the_maximum_is_0() throws Exception {
+        var lane = new DiskReadScheduler(0, 0).getLane(tempDir);
+        var readers = new ArrayList<DiskReadScheduler.Reader>();
+
+        for (var i = 0; i < 100; ++i) {
+            readers.add(lane.acquire(tempDir.resolve("file-" + i), i));
+        }
+
+        readers.forEach(DiskReadScheduler.Reader::close);
+    }
+
+    @Test
+    void read_should_limit_bytes_per_second() throws Exception {
+        var lane = new DiskReadScheduler(1, 1000).getLane(tempDir);
+        var start = System.nanoTime();
+
+        try (var reader = lane.acquire(tempDir.resolve("file"), 500)) {
+            reader.read(250);
+            reader.read(250);
+            // every block waits until the blocks before it are within the limit: 250 ms after the first, 500 ms after the second
+            reader.read(1);
+        }
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(450));
+    }
+}
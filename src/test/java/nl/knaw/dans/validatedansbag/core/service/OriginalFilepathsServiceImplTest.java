@@ -15,14 +15,17 @@
  */
 package nl.knaw.dans.validatedansbag.core.service;
 
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -44,8 +47,8 @@ class OriginalFilepathsServiceImplTest {
                 data/14.txt data/sub/sub/vacio.txt
                 """;
 
-        Mockito.when(fileService.readFileContents(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
-            .thenReturn(contents.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+            .thenReturn(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
 
         var service = new OriginalFilepathsServiceImpl(fileService);
         var result = service.getMapping(Path.of("bagdir"));
@@ -67,8 +70,8 @@ class OriginalFilepathsServiceImplTest {
                 singleitem
                 """;
 
-        Mockito.when(fileService.readFileContents(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
-            .thenReturn(contents.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+            .thenReturn(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
 
         var service = new OriginalFilepathsServiceImpl(fileService);
         var result = service.getMapping(Path.of("bagdir"));
@@ -83,7 +86,7 @@ class OriginalFilepathsServiceImplTest {
 
     @Test
     void getMapping_should_return_empty_result_if_original_filepaths_txt_does_not_exist() throws Exception {
-        Mockito.when(fileService.readFileContents(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
             .thenThrow(new FileNotFoundException("file not found"));
 
         var service = new OriginalFilepathsServiceImpl(fileService);
@@ -92,6 +95,49 @@ class OriginalFilepathsServiceImplTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void getMapping_should_handle_crlf_and_whitespace_in_original_paths() throws Exception {
+        var contents = "data/1.txt data/with space.txt\r\n  data/2.txt\tdata/ünïcode.txt\r\ndata/3.txt \r\n";
+
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+            .thenReturn(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
+
+        var result = new OriginalFilepathsServiceImpl(fileService).getOriginalFilepaths(Path.of("bagdir"));
+
+        assertEquals(2, result.size());
+        assertEquals(Path.of("data/1.txt"), result.getOriginalToRenamed().get(Path.of("data/with space.txt")));
+        assertEquals(Path.of("data/2.txt"), result.getOriginalToRenamed().get(Path.of("data/ünïcode.txt")));
+    }
+
+    @Test
+    void getMapping_should_only_split_on_the_whitespace_of_the_former_regular_expression() throws Exception {
+        // U+001F is whitespace to Character.isWhitespace, but not to \s
+        var contents = "data/1\u001F.txt data/a\u001Fb.txt\n";
+
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+            .thenReturn(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
+
+        var result = new OriginalFilepathsServiceImpl(fileService).getOriginalFilepaths(Path.of("bagdir"));
+
+        assertEquals(1, result.size());
+        assertEquals(Path.of("data/1\u001F.txt"), result.getOriginalToRenamed().get(Path.of("data/a\u001Fb.txt")));
+    }
+
+    @Test
+    void getMapping_should_read_file_once_per_validation() throws Exception {
+        Mockito.when(fileService.newInputStream(Mockito.eq(Path.of("bagdir/original-filepaths.txt"))))
+            .thenAnswer(i -> new ByteArrayInputStream("data/1.txt data/a.txt\n".getBytes(StandardCharsets.UTF_8)));
+
+        var service = new OriginalFilepathsServiceImpl(fileService);
+
+        try (var ignored = new ValidationContext().activate()) {
+            service.getMapping(Path.of("bagdir"));
+            assertEquals(Map.of(Path.of("data/a.txt"), Path.of("data/1.txt")), service.getMappingsFromOriginalToRenamed(Path.of("bagdir")));
+        }
+
+        Mockito.verify(fileService, Mockito.times(1)).newInputStream(Mockito.any());
+    }
+
     @Test
      void getSecurePath_should_throw_IllegalArgumentException(){
         Path basePath = Path.of(OriginalFilepathsServiceImplTest.class.getClassLoader().getName()).toAbsolutePath();
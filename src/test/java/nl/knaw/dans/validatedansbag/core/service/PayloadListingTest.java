@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import gov.loc.repository.bagit.domain.Manifest;
+import gov.loc.repository.bagit.hash.StandardSupportedAlgorithms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadListingTest {
+
+    private static Manifest manifest(Path bagDir, String... files) {
+        var manifest = new Manifest(StandardSupportedAlgorithms.SHA1);
+
+        for (var file : files) {
+            manifest.getFileToChecksumMap().put(bagDir.resolve(file), "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+        }
+
+        return manifest;
+    }
+
+    private static void createFiles(Path bagDir, String... files) throws Exception {
+        for (var file : files) {
+            var path = bagDir.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+    }
+
+    @Test
+    void build_should_list_payload_files_relative_to_the_bag(@TempDir Path bagDir) throws Exception {
+        createFiles(bagDir, "data/a.txt", "data/sub dir/b.txt", "data/.hidden", "bag-info.txt");
+
+        var listing = PayloadListing.build(bagDir, List.of(manifest(bagDir, "data/a.txt", "data/sub dir/b.txt", "data/.hidden")),
+            List.of(manifest(bagDir, "bag-info.txt")));
+
+        assertThat(listing.getFiles()).containsExactlyInAnyOrder(Path.of("data/a.txt"), Path.of("data/sub dir/b.txt"), Path.of("data/.hidden"));
+        assertThat(listing.isComplete()).isTrue();
+    }
+
+    @Test
+    void build_should_report_missing_and_unlisted_files_together(@TempDir Path bagDir) throws Exception {
+        createFiles(bagDir, "data/a.txt", "data/b.txt");
+
+        var listing = PayloadListing.build(bagDir, List.of(manifest(bagDir, "data/a.txt", "data/c.txt")), List.of(manifest(bagDir, "bag-info.txt")));
+
+        assertThat(listing.isComplete()).isFalse();
+        assertThat(listing.getProblems()).containsExactly(
+            "1 file(s) listed in manifest-sha1.txt but not present in the bag: data/c.txt",
+            "1 file(s) present in the payload directory but not listed in manifest-sha1.txt: data/b.txt",
+            "1 file(s) listed in tagmanifest-sha1.txt but not present in the bag: bag-info.txt");
+    }
+
+    @Test
+    void build_should_require_every_payload_file_in_every_payload_manifest(@TempDir Path bagDir) throws Exception {
+        createFiles(bagDir, "data/a.txt", "data/b.txt");
+        var sha1 = manifest(bagDir, "data/a.txt", "data/b.txt");
+        var md5 = new Manifest(StandardSupportedAlgorithms.MD5);
+        md5.getFileToChecksumMap().put(bagDir.resolve("data/a.txt"), "d41d8cd98f00b204e9800998ecf8427e");
+
+        var listing = PayloadListing.build(bagDir, List.of(sha1, md5), List.of());
+
+        assertThat(listing.getProblems()).containsExactly("1 file(s) present in the payload directory but not listed in manifest-md5.txt: data/b.txt");
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.util.Duration;
+import nl.knaw.dans.validatedansbag.config.RevalidationCacheConfig;
+import nl.knaw.dans.validatedansbag.core.engine.FileDigests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevalidationCacheImplTest {
+    @TempDir
+    Path tempDir;
+
+    private Path bagDir;
+    private RevalidationCacheImpl cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bagDir = Files.createDirectories(tempDir.resolve("bag/data"));
+        writeOld(bagDir.resolve("a.txt"), "abc");
+        writeOld(bagDir.resolve("b.txt"), "def");
+        bagDir = bagDir.getParent();
+        cache = createCache(10);
+    }
+
+    private RevalidationCacheImpl createCache(int maxEntries) {
+        var config = new RevalidationCacheConfig();
+        config.setMaxAge(Duration.days(1));
+        config.setMaxEntries(maxEntries);
+        return new RevalidationCacheImpl(tempDir.resolve("cache"), config, new ObjectMapper());
+    }
+
+    // files modified in the last few seconds are not cached, so the test files are made older
+    private static void writeOld(Path file, String content) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    }
+
+    // looks up the files as the checksum verifier does before it reads them, and saves what it verified
+    private void validate(Path bag) {
+        var session = cache.open(bag);
+        session.getDigests().get(bag.resolve("data/a.txt"), "sha1");
+        session.getDigests().get(bag.resolve("data/b.txt"), "sha1");
+        session.save(verified());
+    }
+
+    private FileDigests verified() {
+        var digests = new FileDigests();
+        digests.put(bagDir.resolve("data/a.txt"), "sha1", "a9993e364706816aba3e25717850c26c9cd0d89d");
+        digests.put(bagDir.resolve("data/b.txt"), "sha1", "589c22335a381f122d129225f5c0ba3056ed5811");
+        return digests;
+    }
+
+    @Test
+    void open_should_return_no_digests_for_unknown_bag() throws Exception {
+        assertThat(cache.open(bagDir).getDigests().size()).isZero();
+    }
+
+    @Test
+    void open_should_return_digests_of_unchanged_files() throws Exception {
+        validate(bagDir);
+
+        var digests = cache.open(bagDir).getDigests();
+
+        assertThat(digests.get(bagDir.resolve("data/a.txt"), "sha1")).hasValue("a9993e364706816aba3e25717850c26c9cd0d89d");
+        assertThat(digests.get(bagDir.resolve("data/b.txt"), "sha1")).hasValue("589c22335a381f122d129225f5c0ba3056ed5811");
+    }
+
+    @Test
+    void open_should_not_return_digests_of_changed_files() throws Exception {
+        validate(bagDir);
+        writeOld(bagDir.resolve("data/a.txt"), "abcd");
+
+        var digests = cache.open(bagDir).getDigests();
+
+        assertThat(digests.get(bagDir.resolve("data/a.txt"), "sha1")).isEmpty();
+        assertThat(digests.get(bagDir.resolve("data/b.txt"), "sha1")).isPresent();
+    }
+
+    @Test
+    void save_should_skip_files_that_changed_during_the_validation() throws Exception {
+        var session = cache.open(bagDir);
+        session.getDigests().get(bagDir.resolve("data/a.txt"), "sha1");
+        session.getDigests().get(bagDir.resolve("data/b.txt"), "sha1");
+        Files.writeString(bagDir.resolve("data/a.txt"), "changed");
+        session.save(verified());
+
+        var digests = cache.open(bagDir).getDigests();
+
+        assertThat(digests.get(bagDir.resolve("data/a.txt"), "sha1")).isEmpty();
+        assertThat(digests.get(bagDir.resolve("data/b.txt"), "sha1")).isPresent();
+    }
+
+    @Test
+    void save_should_skip_files_that_were_not_fingerprinted_before_they_were_verified() throws Exception {
+        var session = cache.open(bagDir);
+        session.getDigests().get(bagDir.resolve("data/b.txt"), "sha1");
+        session.save(verified());
+
+        var digests = cache.open(bagDir).getDigests();
+
+        assertThat(digests.get(bagDir.resolve("data/a.txt"), "sha1")).isEmpty();
+        assertThat(digests.get(bagDir.resolve("data/b.txt"), "sha1")).isPresent();
+    }
+
+    @Test
+    void open_should_not_fingerprint_files_that_are_not_looked_up() throws Exception {
+        validate(bagDir);
+
+        var digests = cache.open(bagDir).getDigests();
+
+        assertThat(digests.size()).isZero();
+        assertThat(digests.get(bagDir.resolve("data/b.txt"), "sha1")).isPresent();
+        assertThat(digests.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sweep_should_remove_least_recently_saved_entries_over_the_maximum() throws Exception {
+        cache = createCache(1);
+        var otherBag = Files.createDirectories(tempDir.resolve("other-bag"));
+        validate(bagDir);
+        validate(otherBag);
+
+        try (var entries = Files.list(tempDir.resolve("cache"))) {
+            for (var entry : (Iterable<Path>) entries::iterator) {
+                if (isEntryOf(entry, bagDir)) {
+                    Files.setLastModifiedTime(entry, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+                }
+            }
+        }
+
+        assertThat(cache.sweep()).isEqualTo(1);
+        assertThat(cache.open(bagDir).getDigests().get(bagDir.resolve("data/a.txt"), "sha1")).isEmpty();
+
+        try (var entries = Files.list(tempDir.resolve("cache"))) {
+            assertThat(entries).hasSize(1);
+        }
+    }
+
+    private static boolean isEntryOf(Path entry, Path bag) throws Exception {
+        return new ObjectMapper().readTree(entry.toFile()).get("bagPath").asText().equals(bag.toAbsolutePath().normalize().toString());
+    }
+
+    @Test
+    void start_should_remove_expired_entries() throws Exception {
+        validate(bagDir);
+
+        try (var entries = Files.list(tempDir.resolve("cache"))) {
+            for (var entry : (Iterable<Path>) entries::iterator) {
+                Files.setLastModifiedTime(entry, FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+            }
+        }
+
+        cache.start();
+        cache.stop();
+
+        try (var entries = Files.list(tempDir.resolve("cache"))) {
+            assertThat(entries).isEmpty();
+        }
+    }
+}
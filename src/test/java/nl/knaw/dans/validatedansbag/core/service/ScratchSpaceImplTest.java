@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+import nl.knaw.dans.validatedansbag.config.ScratchSpaceConfig;
+import nl.knaw.dans.validatedansbag.core.ScratchSpaceExhaustedException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScratchSpaceImplTest {
+    @TempDir
+    Path baseFolder;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ScratchSpaceImpl createScratchSpace(DataSize maxSize, int maxConcurrentExtractions) {
+        var config = new ScratchSpaceConfig();
+        config.setMaxSize(maxSize);
+        config.setMaxConcurrentExtractions(maxConcurrentExtractions);
+        config.setAcquireTimeout(Duration.milliseconds(10));
+        config.setOrphanMaxAge(Duration.hours(1));
+        return new ScratchSpaceImpl(baseFolder.resolve("temp"), new FileServiceImpl(baseFolder), config, executor);
+    }
+
+    private Path zip(int fileSize) throws IOException {
+        var file = Files.createTempFile(Files.createDirectories(baseFolder.resolve("uploads")), "upload-", ".zip");
+
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("bag/bagit.txt"));
+            zip.write("BagIt-Version: 1.0\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/data/file.bin"));
+            zip.write(new byte[fileSize]);
+            zip.closeEntry();
+        }
+
+        return file;
+    }
+
+    @Test
+    void extractZipFile_should_delete_extracted_files_when_closed() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 1);
+        Path path;
+
+        try (var extraction = scratchSpace.extractZipFile(zip(1000), ValidationProfile.FULL)) {
+            path = extraction.getPath();
+            assertThat(Files.size(path.resolve("bag/data/file.bin"))).isEqualTo(1000);
+            assertThat(extraction.getBytes()).isEqualTo(1019);
+        }
+
+        assertThat(path).doesNotExist();
+        // the slot is released, so the next extraction succeeds
+        scratchSpace.extractZipFile(zip(1000), ValidationProfile.FULL).close();
+    }
+
+    @Test
+    void extractZipFile_should_compute_digests_for_the_algorithms_of_the_manifests() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 1);
+        var file = Files.createTempFile(Files.createDirectories(baseFolder.resolve("uploads")), "upload-", ".zip");
+
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("bag/manifest-sha1.txt"));
+            zip.write("a9993e364706816aba3e25717850c26c9cd0d89d  data/abc.txt\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/data/abc.txt"));
+            zip.write("abc".getBytes());
+            zip.closeEntry();
+        }
+
+        try (var extraction = scratchSpace.extractZipFile(file, ValidationProfile.FULL)) {
+            assertThat(extraction.getDigests().get(extraction.getPath().resolve("bag/data/abc.txt"), "sha1"))
+                .hasValue("a9993e364706816aba3e25717850c26c9cd0d89d");
+            assertThat(extraction.getDigests().get(extraction.getPath().resolve("bag/data/abc.txt"), "md5")).isEmpty();
+        }
+    }
+
+    @Test
+    void extractZipFile_should_only_hash_tag_files_with_tag_manifest_algorithms_for_metadata_only() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 1);
+        var file = Files.createTempFile(Files.createDirectories(baseFolder.resolve("uploads")), "upload-", ".zip");
+
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("bag/bagit.txt"));
+            zip.write("BagIt-Version: 1.0\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/manifest-sha1.txt"));
+            zip.write("a9993e364706816aba3e25717850c26c9cd0d89d  data/abc.txt\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/tagmanifest-md5.txt"));
+            zip.write("x  bagit.txt\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/data/abc.txt"));
+            zip.write("abc".getBytes());
+            zip.closeEntry();
+        }
+
+        try (var extraction = scratchSpace.extractZipFile(file, ValidationProfile.METADATA_ONLY)) {
+            var digests = extraction.getDigests();
+            var bagDir = extraction.getPath().resolve("bag");
+
+            assertThat(digests.get(bagDir.resolve("bagit.txt"), "md5")).isPresent();
+            assertThat(digests.get(bagDir.resolve("bagit.txt"), "sha1")).isEmpty();
+            assertThat(digests.get(bagDir.resolve("data/abc.txt"), "md5")).isEmpty();
+            assertThat(digests.get(bagDir.resolve("data/abc.txt"), "sha1")).isEmpty();
+        }
+    }
+
+    @Test
+    void extractZipFile_should_skip_the_payload_if_the_entries_do_not_match_the_manifests() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 1);
+        var file = Files.createTempFile(Files.createDirectories(baseFolder.resolve("uploads")), "upload-", ".zip");
+
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("bag/bagit.txt"));
+            zip.write("BagIt-Version: 1.0\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/manifest-sha1.txt"));
+            zip.write("a9993e364706816aba3e25717850c26c9cd0d89d  data/missing.txt\n".getBytes());
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("bag/data/abc.txt"));
+            zip.write("abc".getBytes());
+            zip.closeEntry();
+        }
+
+        try (var extraction = scratchSpace.extractZipFile(file, ValidationProfile.FULL)) {
+            var bagDir = extraction.getPath().resolve("bag");
+
+            assertThat(extraction.getIncompleteBagProblems()).containsExactly(
+                "1 file(s) listed in manifest-sha1.txt but not present in the ZIP file: data/missing.txt",
+                "1 file(s) present in the ZIP file but not listed in manifest-sha1.txt: data/abc.txt");
+            assertThat(bagDir.resolve("bagit.txt")).exists();
+            assertThat(bagDir.resolve("manifest-sha1.txt")).exists();
+            assertThat(bagDir.resolve("data/abc.txt")).doesNotExist();
+            assertThat(extraction.getDigests().size()).isZero();
+        }
+    }
+
+    @Test
+    void extractZipFile_should_reject_zip_that_exceeds_the_quota_and_clean_up() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.bytes(10_000), 2);
+
+        assertThatThrownBy(() -> scratchSpace.extractZipFile(zip(20_000), ValidationProfile.FULL))
+            .isInstanceOf(ScratchSpaceExhaustedException.class);
+
+        try (var entries = Files.list(baseFolder.resolve("temp"))) {
+            assertThat(entries).isEmpty();
+        }
+
+        // the bytes of the failed extraction are released as well
+        scratchSpace.extractZipFile(zip(9_000), ValidationProfile.FULL).close();
+    }
+
+    @Test
+    void extractZipFile_should_reject_extraction_when_the_maximum_number_is_running() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 1);
+
+        try (var ignored = scratchSpace.extractZipFile(zip(10), ValidationProfile.FULL)) {
+            assertThatThrownBy(() -> scratchSpace.extractZipFile(zip(10), ValidationProfile.FULL))
+                .isInstanceOf(ScratchSpaceExhaustedException.class)
+                .hasMessageContaining("concurrent");
+        }
+    }
+
+    @Test
+    void sweepOrphans_should_delete_old_entries_that_are_not_in_use() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 2);
+        var oldOrphan = Files.createDirectories(baseFolder.resolve("temp/bag-old/data"));
+        var newOrphan = Files.createDirectories(baseFolder.resolve("temp/bag-new"));
+        Files.setLastModifiedTime(oldOrphan.getParent(), FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+
+        try (var running = scratchSpace.extractZipFile(zip(10), ValidationProfile.FULL)) {
+            Files.setLastModifiedTime(running.getPath(), FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+
+            assertThat(scratchSpace.sweepOrphans()).isEqualTo(1);
+            assertThat(oldOrphan.getParent()).doesNotExist();
+            assertThat(newOrphan).exists();
+            assertThat(running.getPath()).exists();
+        }
+    }
+
+    @Test
+    void start_should_delete_all_leftovers() throws Exception {
+        var scratchSpace = createScratchSpace(DataSize.megabytes(1), 2);
+        Files.createDirectories(baseFolder.resolve("temp/bag-leftover/data"));
+
+        scratchSpace.start();
+        scratchSpace.stop();
+
+        try (var entries = Files.list(baseFolder.resolve("temp"))) {
+            assertThat(entries).isEmpty();
+        }
+    }
+}
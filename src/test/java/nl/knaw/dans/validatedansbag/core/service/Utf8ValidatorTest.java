@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Utf8ValidatorTest {
+
+    private static Utf8Validator.InvalidSequence findInvalid(byte[] bytes, boolean asciiFastPath) throws Exception {
+        return new Utf8Validator(asciiFastPath).findInvalidSequence(Channels.newChannel(new ByteArrayInputStream(bytes))).orElse(null);
+    }
+
+    private static boolean isDecodable(byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes));
+            return true;
+        }
+        catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void findInvalidSequence_should_report_offset_and_line() throws Exception {
+        for (var asciiFastPath : new boolean[] { true, false }) {
+            var bytes = "data/a.txt data/a.txt\ndata/b.txt data/é.txt\ndata/c.txt data/".getBytes(StandardCharsets.UTF_8);
+            var invalid = Arrays.copyOf(bytes, bytes.length + 2);
+            invalid[bytes.length] = (byte) 0xC0; // overlong encoding of '/'
+            invalid[bytes.length + 1] = (byte) 0xAF;
+
+            assertThat(findInvalid(bytes, asciiFastPath)).isNull();
+            assertThat(findInvalid(invalid, asciiFastPath)).isEqualTo(new Utf8Validator.InvalidSequence(bytes.length, 3));
+        }
+    }
+
+    @Test
+    void findInvalidSequence_should_handle_sequences_across_blocks_and_truncated_input() throws Exception {
+        for (var asciiFastPath : new boolean[] { true, false }) {
+            var ascii = new byte[64 * 1024 - 1];
+            Arrays.fill(ascii, (byte) 'a');
+            var euro = "€".getBytes(StandardCharsets.UTF_8);
+            var bytes = new byte[ascii.length + euro.length];
+            System.arraycopy(ascii, 0, bytes, 0, ascii.length);
+            System.arraycopy(euro, 0, bytes, ascii.length, euro.length);
+
+            assertThat(findInvalid(bytes, asciiFastPath)).isNull();
+            assertThat(findInvalid(Arrays.copyOf(bytes, bytes.length - 1), asciiFastPath)).isEqualTo(new Utf8Validator.InvalidSequence(ascii.length, 1));
+        }
+    }
+
+    @Test
+    void findInvalidSequence_should_agree_with_jdk_decoder() throws Exception {
+        for (var asciiFastPath : new boolean[] { true, false }) {
+            var random = new Random(42);
+
+            for (var i = 0; i < 10000; ++i) {
+                var bytes = new byte[random.nextInt(20)];
+
+                for (var j = 0; j < bytes.length; ++j) {
+                    // mostly ASCII, with lead and continuation bytes in between
+                    bytes[j] = (byte) (random.nextInt(4) == 0 ? 0x80 + random.nextInt(0x80) : random.nextInt(0x80));
+                }
+
+                assertThat(findInvalid(bytes, asciiFastPath) == null).as("input %s", Arrays.toString(bytes)).isEqualTo(isDecodable(bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WhitespaceTest {
+
+    @Test
+    void isRegexWhitespace_should_match_the_same_characters_as_backslash_s() {
+        var pattern = Pattern.compile("\\s");
+
+        for (var c = Character.MIN_VALUE; c < Character.MAX_VALUE; ++c) {
+            assertThat(Whitespace.isRegexWhitespace(c)).as("U+%04X", (int) c).isEqualTo(pattern.matcher(String.valueOf(c)).matches());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXParseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class XmlReaderImplTest {
+
+    private static final String DOCTYPE_XML = "<?xml version=\"1.0\"?><!DOCTYPE x [<!ENTITY e \"boom\">]><x>&e;</x>";
+
+    @Test
+    void readXmlString_should_be_namespace_aware() throws Exception {
+        var document = new XmlReaderImpl().readXmlString("<ddm:DDM xmlns:ddm=\"" + XmlReader.NAMESPACE_DDM + "\"/>");
+
+        assertThat(document.getDocumentElement().getNamespaceURI()).isEqualTo(XmlReader.NAMESPACE_DDM);
+        assertThat(document.getDocumentElement().getLocalName()).isEqualTo("DDM");
+    }
+
+    @Test
+    void readXmlString_should_reject_doctype_also_with_reused_builder() throws Exception {
+        var reader = new XmlReaderImpl(1);
+
+        for (var i = 0; i < 3; ++i) {
+            assertThat(reader.readXmlString("<x>ok</x>").getDocumentElement().getTextContent()).isEqualTo("ok");
+            assertThatThrownBy(() -> reader.readXmlString(DOCTYPE_XML)).isInstanceOf(SAXParseException.class);
+        }
+    }
+
+    @Test
+    void readXmlString_should_recover_after_malformed_document() throws Exception {
+        var reader = new XmlReaderImpl(1);
+
+        assertThatThrownBy(() -> reader.readXmlString("<x>")).isInstanceOf(SAXParseException.class);
+        assertThat(reader.readXmlString("<y>fine</y>").getDocumentElement().getTextContent()).isEqualTo("fine");
+    }
+
+    @Test
+    void readXmlString_should_be_usable_from_several_threads() throws Exception {
+        var reader = new XmlReaderImpl(2);
+        var executor = Executors.newFixedThreadPool(8);
+
+        try {
+            var tasks = new ArrayList<Callable<String>>();
+
+            for (var i = 0; i < 200; ++i) {
+                var text = "value-" + i;
+                tasks.add(() -> reader.readXmlString("<x>" + text + "</x>").getDocumentElement().getTextContent());
+            }
+
+            var futures = executor.invokeAll(tasks);
+
+            for (var i = 0; i < futures.size(); ++i) {
+                assertThat(futures.get(i).get()).isEqualTo("value-" + i);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readXmlString_should_create_a_new_builder_for_every_document_if_none_are_kept() throws Exception {
+        var reader = new XmlReaderImpl(0);
+
+        for (var i = 0; i < 3; ++i) {
+            assertThat(reader.readXmlString("<x>ok</x>").getDocumentElement().getTextContent()).isEqualTo("ok");
+            assertThatThrownBy(() -> reader.readXmlString(DOCTYPE_XML)).isInstanceOf(SAXParseException.class);
+        }
+    }
+
+    @Test
+    void constructor_should_reject_negative_number_of_idle_builders() {
+        assertThatThrownBy(() -> new XmlReaderImpl(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readXmlFile_should_parse_a_file_only_once_per_validation(@TempDir Path dir) throws Exception {
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<x>ok</x>");
+        var reader = new XmlReaderImpl();
+        var context = new ValidationContext();
+
+        try (var ignored = context.activate()) {
+            var document = reader.readXmlFile(file);
+
+            assertThat(reader.readXmlFile(file)).isSameAs(document);
+            assertThat(context.getBytesRead()).isEqualTo(Files.size(file));
+        }
+
+        // a new validation parses the file again
+        try (var ignored = new ValidationContext().activate()) {
+            assertThat(reader.readXmlFile(file).getDocumentElement().getTextContent()).isEqualTo("ok");
+        }
+    }
+
+    @Test
+    void readXmlFile_should_defer_node_expansion_for_a_large_files_xml(@TempDir Path dir) throws Exception {
+        var xml = new StringBuilder("<files xmlns=\"" + XmlReader.NAMESPACE_FILES_XML + "\">");
+
+        for (var i = 0; i < 1000; ++i) {
+            xml.append("<file filepath=\"data/file-").append(i).append(".txt\"/>");
+        }
+
+        var largeFile = Files.writeString(dir.resolve("large-files.xml"), xml.append("</files>"));
+        var smallFile = Files.writeString(dir.resolve("small-files.xml"), "<files xmlns=\"" + XmlReader.NAMESPACE_FILES_XML + "\"/>");
+        var reader = new XmlReaderImpl(1, 1024, Map.of());
+
+        try (var ignored = new ValidationContext().activate()) {
+            var largeDocument = reader.readXmlFile(largeFile);
+            var smallDocument = reader.readXmlFile(smallFile);
+
+            assertThat(largeDocument.getClass().getSimpleName()).isEqualTo("DeferredDocumentImpl");
+            assertThat(largeDocument.getDocumentElement().getElementsByTagNameNS(XmlReader.NAMESPACE_FILES_XML, "file").getLength()).isEqualTo(1000);
+            assertThat(smallDocument.getClass().getSimpleName()).isEqualTo("DocumentImpl");
+        }
+    }
+
+    private static final String SCHEMA = ""
+        + "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:test\" elementFormDefault=\"qualified\">"
+        + "  <xs:element name=\"root\"><xs:complexType><xs:sequence>"
+        + "    <xs:element name=\"code\" maxOccurs=\"unbounded\"><xs:simpleType><xs:restriction base=\"xs:token\"><xs:maxLength value=\"3\"/></xs:restriction></xs:simpleType></xs:element>"
+        + "  </xs:sequence></xs:complexType></xs:element>"
+        + "</xs:schema>";
+
+    @Test
+    void validateXmlFile_should_report_every_violation_with_its_line_and_column(@TempDir Path dir) throws Exception {
+        var schema = Files.writeString(dir.resolve("test.xsd"), SCHEMA);
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<root xmlns=\"urn:test\">\n  <code>abcd</code>\n  <other/>\n</root>");
+        var reader = new XmlReaderImpl(1, XmlReaderImpl.DEFAULT_DEFERRED_NODE_EXPANSION_THRESHOLD, Map.of("test", schema.toUri()));
+
+        try (var ignored = new ValidationContext().activate()) {
+            var errors = reader.validateXmlFile(file, "test");
+
+            assertThat(errors).extracting(SAXParseException::getLineNumber).containsExactly(2, 2, 3);
+            assertThat(errors.get(0).getMessage()).startsWith("cvc-maxLength-valid");
+            assertThat(errors.get(2).getColumnNumber()).isEqualTo(11);
+        }
+    }
+
+    @Test
+    void validateXmlFile_should_share_the_validated_document_with_readXmlFile(@TempDir Path dir) throws Exception {
+        var schema = Files.writeString(dir.resolve("test.xsd"), SCHEMA);
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<root xmlns=\"urn:test\"><code>  ab  </code></root>");
+        var reader = new XmlReaderImpl(1, XmlReaderImpl.DEFAULT_DEFERRED_NODE_EXPANSION_THRESHOLD, Map.of("test", schema.toUri()));
+        var context = new ValidationContext();
+
+        try (var ignored = context.activate()) {
+            assertThat(reader.validateXmlFile(file, "test")).isEmpty();
+
+            var document = reader.readXmlFile(file);
+
+            assertThat(reader.readXmlFile(file)).isSameAs(document);
+            assertThat(context.getBytesRead()).isEqualTo(Files.size(file));
+            // the value is not normalized by the schema type
+            assertThat(document.getDocumentElement().getTextContent()).isEqualTo("  ab  ");
+        }
+    }
+
+    @Test
+    void validateXmlFile_should_throw_if_the_file_is_not_well_formed(@TempDir Path dir) throws Exception {
+        var schema = Files.writeString(dir.resolve("test.xsd"), SCHEMA);
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<root xmlns=\"urn:test\">");
+        var reader = new XmlReaderImpl(1, XmlReaderImpl.DEFAULT_DEFERRED_NODE_EXPANSION_THRESHOLD, Map.of("test", schema.toUri()));
+
+        try (var ignored = new ValidationContext().activate()) {
+            assertThatThrownBy(() -> reader.validateXmlFile(file, "test")).isInstanceOf(SAXParseException.class);
+            assertThatThrownBy(() -> reader.readXmlFile(file)).isInstanceOf(SAXParseException.class);
+        }
+    }
+
+    @Test
+    void validateXmlFile_should_reject_a_schema_that_is_not_configured(@TempDir Path dir) throws Exception {
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<x/>");
+
+        try (var ignored = new ValidationContext().activate()) {
+            assertThatThrownBy(() -> new XmlReaderImpl().validateXmlFile(file, "dataset.xml")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void readXmlFile_should_throw_the_parse_error_to_every_rule(@TempDir Path dir) throws Exception {
+        var file = Files.writeString(dir.resolve("dataset.xml"), "<x>");
+        var reader = new XmlReaderImpl();
+
+        try (var ignored = new ValidationContext().activate()) {
+            assertThatThrownBy(() -> reader.readXmlFile(file)).isInstanceOf(SAXParseException.class);
+            assertThatThrownBy(() -> reader.readXmlFile(file)).isInstanceOf(SAXParseException.class);
+        }
+    }
+}
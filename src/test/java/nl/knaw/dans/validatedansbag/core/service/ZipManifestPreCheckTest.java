@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZipManifestPreCheckTest {
+    @TempDir
+    Path tempDir;
+
+    private Path zip(Map<String, String> entries) throws IOException {
+        var file = tempDir.resolve("bag.zip");
+
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            for (var entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes());
+                zip.closeEntry();
+            }
+        }
+
+        return file;
+    }
+
+    private Map<String, String> bag(String manifest, String oxum) {
+        var entries = new LinkedHashMap<String, String>();
+        entries.put("bag/bagit.txt", "BagIt-Version: 1.0\nTag-File-Character-Encoding: UTF-8\n");
+        entries.put("bag/bag-info.txt", "Payload-Oxum: " + oxum + "\n");
+        entries.put("bag/manifest-sha1.txt", manifest);
+        entries.put("bag/data/a.txt", "abc");
+        entries.put("bag/data/sub dir/b.txt", "de");
+        return entries;
+    }
+
+    private List<String> check(Path file) throws Exception {
+        try (var zip = new ZipFile(file.toFile())) {
+            return new ZipManifestPreCheck().check(zip, Collections.list(zip.entries()));
+        }
+    }
+
+    @Test
+    void check_should_accept_zip_that_matches_the_manifest() throws Exception {
+        var file = zip(bag("x  data/a.txt\ny  data/sub dir/b.txt\n", "5.2"));
+
+        assertThat(check(file)).isEmpty();
+    }
+
+    @Test
+    void check_should_report_file_missing_from_zip() throws Exception {
+        var file = zip(bag("x  data/a.txt\ny  data/sub dir/b.txt\nz  data/c.txt\n", "5.2"));
+
+        assertThat(check(file)).containsExactly("1 file(s) listed in manifest-sha1.txt but not present in the ZIP file: data/c.txt");
+    }
+
+    @Test
+    void check_should_report_file_missing_from_manifest() throws Exception {
+        var file = zip(bag("x  data/a.txt\n", "5.2"));
+
+        assertThat(check(file)).containsExactly("1 file(s) present in the ZIP file but not listed in manifest-sha1.txt: data/sub dir/b.txt");
+    }
+
+    @Test
+    void check_should_ignore_payload_oxum_as_for_a_bag_on_local_disk() throws Exception {
+        var file = zip(bag("x  data/a.txt\ny  data/sub dir/b.txt\n", "6.2"));
+
+        assertThat(check(file)).isEmpty();
+    }
+
+    @Test
+    void check_should_skip_zip_without_a_single_bag() throws Exception {
+        var entries = bag("x  data/a.txt\n", "1.1");
+        entries.remove("bag/bagit.txt");
+        var file = zip(entries);
+
+        assertThat(check(file)).isEmpty();
+    }
+}
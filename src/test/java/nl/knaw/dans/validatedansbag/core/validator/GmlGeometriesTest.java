@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.core.validator;
+
+import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GmlGeometriesTest {
+
+    @Test
+    void read_should_collect_points_posLists_and_multi_surfaces_in_one_pass() throws Exception {
+        var xml = "<ddm:DDM xmlns:ddm='http://schemas.dans.knaw.nl/dataset/ddm-v2/' xmlns:dcx-gml='http://easy.dans.knaw.nl/schemas/dcx/gml/'"
+            + " xmlns:gml='http://www.opengis.net/gml'>"
+            + "<gml:Point srsName='urn:ogc:def:crs:EPSG::28992'><gml:pos>1 2</gml:pos></gml:Point>"
+            + "<gml:pos>3 4</gml:pos>"
+            + "<dcx-gml:spatial><gml:MultiSurface>"
+            + "<gml:surfaceMember><gml:Polygon srsName='a'><gml:exterior><gml:LinearRing><gml:posList>1 2 3 4 5 6 1 2</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon></gml:surfaceMember>"
+            + "<gml:surfaceMember><gml:Polygon srsName='b'/></gml:surfaceMember>"
+            + "</gml:MultiSurface></dcx-gml:spatial>"
+            + "<gml:posList>7 8</gml:posList>"
+            + "</ddm:DDM>";
+
+        var geometries = GmlGeometries.read(new XmlReaderImpl().readXmlString(xml));
+
+        assertThat(geometries.getPoints()).hasSize(1);
+        assertThat(geometries.getPoints().get(0).getSrsName()).isEqualTo(GmlGeometries.SRS_NAME_RD);
+        assertThat(geometries.getPoints().get(0).getCoordinates()).containsExactly(1, 2);
+        assertThat(geometries.getPosLists()).containsExactly("1 2 3 4 5 6 1 2");
+        assertThat(geometries.getMultiSurfaceSrsNames()).isEqualTo(List.of(Set.of("a", "b")));
+    }
+
+    @Test
+    void parseCoordinates_should_return_null_for_non_numeric_values() {
+        assertThat(GmlGeometries.parseCoordinates("  52.1 4.3\n")).containsExactly(52.1, 4.3);
+        assertThat(GmlGeometries.parseCoordinates("a 5")).isNull();
+        assertThat(GmlGeometries.parseCoordinates("")).isEmpty();
+    }
+
+    @Test
+    void bounds_should_be_inclusive() {
+        var rd = GmlGeometries.getBounds(GmlGeometries.SRS_NAME_RD).orElseThrow();
+
+        assertThat(rd.contains(new double[] { -7000, 289000 }, 0)).isTrue();
+        assertThat(rd.contains(new double[] { 0, 0, 300000.5, 629000 }, 2)).isFalse();
+        assertThat(GmlGeometries.getBounds("urn:ogc:def:crs:EPSG::4326")).isEmpty();
+    }
+}
@@ -18,7 +18,9 @@ package nl.knaw.dans.validatedansbag.core.validator;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -104,4 +106,47 @@ class IdentifierValidatorImplTest {
             assertFalse(identifierValidator.validateIsni(id));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateDai_should_accept_info_eu_repo_prefix() {
+        var c = new IdentifierValidatorImpl();
+        assertTrue(c.validateDai("info:eu-repo/dai/nl/124398545"));
+        assertFalse(c.validateDai("info:eu-repo/dai/nl/124398546"));
+    }
+
+    @Test
+    void validateDai_should_return_false_for_empty_and_non_digit_values() {
+        var c = new IdentifierValidatorImpl();
+        assertFalse(c.validateDai(""));
+        assertFalse(c.validateDai("info:eu-repo/dai/nl/"));
+        assertFalse(c.validateDai("12a45678900"));
+    }
+
+    @Test
+    void validateOrcid_should_accept_bare_identifier_and_reject_uri_without_path() {
+        var identifierValidator = new IdentifierValidatorImpl();
+        assertTrue(identifierValidator.validateOrcid("0000-0002-1825-0097"));
+        assertTrue(identifierValidator.validateOrcid("0000000218250097"));
+        assertFalse(identifierValidator.validateOrcid("https://orcid.org"));
+        assertFalse(identifierValidator.validateOrcid("https://orcid.org/0000-0002-1825-0097/"));
+    }
+
+    @Test
+    void validateOrcid_and_validateIsni_should_compare_the_host_case_sensitively() {
+        var identifierValidator = new IdentifierValidatorImpl();
+        assertTrue(identifierValidator.validateOrcid("https://orcid.org/0000-0002-1825-0097"));
+        assertFalse(identifierValidator.validateOrcid("HTTPS://ORCID.ORG/0000-0002-1825-0097"));
+        assertFalse(identifierValidator.validateOrcid("https://Orcid.org/0000-0002-1825-0097"));
+        assertFalse(identifierValidator.validateIsni("https://ISNI.ORG/isni/0000-0002-1825-0097"));
+    }
+
+    @Test
+    void findInvalid_should_return_invalid_identifiers_in_order() {
+        var identifierValidator = new IdentifierValidatorImpl();
+
+        var invalid = identifierValidator.findInvalid(IdentifierType.ISNI,
+            Stream.of("1234", "0000 0001 2281 955X", "https://isni.org/isni/0000-0002-1825-0098"));
+
+        assertEquals(List.of("1234", "https://isni.org/isni/0000-0002-1825-0098"), invalid);
+    }
+}
@@ -58,37 +58,59 @@ class PolygonListValidatorImplTest {
 
     @Test
     void validateEvenSize_should_not_throw_with_even_number() {
-        var data = new String[] { "1", "2", "3", "4" };
+        var data = PosList.scan("1 2 3 4");
         assertDoesNotThrow(() -> new PolygonListValidatorImpl().validateEvenSize(data));
     }
 
     @Test
     void validateEvenSize_should_throw_with_uneven_number() {
-        var data = new String[] { "1", "2", "3", "4", "5" };
+        var data = PosList.scan("1 2 3 4 5");
         assertThrows(PolygonListValidator.PolygonValidationException.class, () -> new PolygonListValidatorImpl().validateEvenSize(data));
     }
 
     @Test
     void validateMinLength_should_not_throw_with_8_parameters() {
-        var data = new String[] { "1", "2", "3", "4", "5", "6", "7", "8" };
+        var data = PosList.scan("1 2 3 4 5 6 7 8");
         assertDoesNotThrow(() -> new PolygonListValidatorImpl().validateMinLength(data));
     }
 
     @Test
     void validateMinLength_should_throw_with_7_parameters() {
-        var data = new String[] { "2", "3", "4", "5", "6", "7", "8" };
+        var data = PosList.scan("2 3 4 5 6 7 8");
         assertThrows(PolygonListValidator.PolygonValidationException.class, () -> new PolygonListValidatorImpl().validateMinLength(data));
     }
 
     @Test
     void validateEndEqualsBegin_should_not_throw_if_first_2_items_match_last_2_items() {
-        var data = new String[] { "1", "2", "3", "4", "5", "6", "7", "8", "1", "2" };
+        var data = PosList.scan("1 2 3 4 5 6 7 8 1 2");
         assertDoesNotThrow(() -> new PolygonListValidatorImpl().validateEndEqualsBegin(data));
     }
 
     @Test
     void validateEndEqualsBegin_should_throw_if_first_2_items_do_not_match_last_2_items() {
-        var data = new String[] { "1", "2", "3", "4", "5", "6", "7", "8" };
+        var data = PosList.scan("1 2 3 4 5 6 7 8");
         assertThrows(PolygonListValidator.PolygonValidationException.class, () -> new PolygonListValidatorImpl().validateEndEqualsBegin(data));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validatePolygonList_should_ignore_surrounding_whitespace() {
+        var msg = "\n      1 2 3 4\n      5 6 7 8\n      1 2\n    ";
+        var result = new PolygonListValidatorImpl().validatePolygonList(msg);
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    void validatePolygonList_should_show_first_10_values_in_message() {
+        var msg = "1 2 3 4 5 6 7 8 9 10 11 12";
+        var result = new PolygonListValidatorImpl().validatePolygonList(msg);
+        assertFalse(result.isValid());
+        assertTrue(result.getMessage().endsWith("(Offending posList starts with: 1, 2, 3, 4, 5, 6, 7, 8, 9, 10...)"));
+    }
+
+    @Test
+    void scan_should_compare_values_textually() {
+        assertFalse(PosList.scan("1.0 2 3 4 5 6 1 2").firstPairEqualsLastPair());
+        assertTrue(PosList.scan("12 2 3 4 5 6 12 2").firstPairEqualsLastPair());
+        assertFalse(PosList.scan("12 2 3 4 5 6 1 2").firstPairEqualsLastPair());
+    }
+}
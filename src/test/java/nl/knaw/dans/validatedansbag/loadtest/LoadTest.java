@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.loadtest;
+
+import io.dropwizard.testing.ConfigOverride;
+import io.dropwizard.testing.DropwizardTestSupport;
+import io.dropwizard.testing.ResourceHelpers;
+import nl.knaw.dans.validatedansbag.DdValidateDansBagApplication;
+import nl.knaw.dans.validatedansbag.config.DdValidateDansBagConfiguration;
+import nl.knaw.dans.validatedansbag.resources.util.SyntheticBagGenerator;
+import nl.knaw.dans.validatedansbag.resources.util.SyntheticBagGenerator.PayloadSizes;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Starts the service with a local stand-in for Dataverse or the vault catalog and fires concurrent validation requests at it. Half of the requests (by default)
+ * point to a local directory, the others upload a ZIP. At the end throughput, latency percentiles, heap usage and GC activity are printed. The service runs in
+ * the same JVM, so the heap and GC figures include the (small) overhead of the load generator itself.
+ *
+ * <p>Run it with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=nl.knaw.dans.validatedansbag.loadtest.LoadTest
+ * -Dexec.args="--concurrency=8 --requests=1000"</code>. See {@link LoadTestOptions} for all options.</p>
+ */
+public class LoadTest {
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final LoadTestOptions options;
+    private final PrintStream out = System.out;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicLong maxHeapUsed = new AtomicLong();
+
+    private List<Path> bagDirs;
+    private List<Path> zipFiles;
+    private URI baseUrl;
+
+    private enum Kind {
+        LOCAL_DIR,
+        ZIP
+    }
+
+    private record Sample(Kind kind, long latencyNanos, int status, boolean compliant) {
+    }
+
+    public LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestOptions.parse(args)).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        var workDir = Files.createTempDirectory("dd-validate-dans-bag-loadtest");
+        out.printf("Generating %d bags in %s%n", options.getBags(), workDir);
+        generateBags(workDir);
+
+        try (var standIn = new RemoteServiceStandIn(options.getRemoteLatencyMillis())) {
+            var support = new DropwizardTestSupport<DdValidateDansBagConfiguration>(DdValidateDansBagApplication.class,
+                ResourceHelpers.resourceFilePath(String.format("loadtest/config-%s.yml", options.getMode().name().toLowerCase(Locale.ROOT))),
+                ConfigOverride.config("validation.baseFolder", workDir.toString()),
+                ConfigOverride.config(options.getMode() == LoadTestOptions.Mode.DATASTATION ? "dataverse.baseUrl" : "vaultCatalog.baseUrl",
+                    standIn.getBaseUrl().toString()));
+
+            support.before();
+
+            try {
+                baseUrl = URI.create(String.format("http://localhost:%d/", support.getLocalPort()));
+                out.printf("Service started at %s, warming up with %d requests%n", baseUrl, options.getWarmupRequests());
+
+                for (int i = 0; i < options.getWarmupRequests(); ++i) {
+                    send(i, System.nanoTime());
+                }
+
+                samples.clear();
+                out.printf("Sending %d requests with concurrency %d%s%n", options.getRequests(), options.getConcurrency(),
+                    options.getRate() > 0 ? String.format(" at %.1f requests/s", options.getRate()) : "");
+
+                var gcBefore = gcStatistics();
+                resetPeakHeapUsage();
+                var start = System.nanoTime();
+
+                if (options.getRate() > 0) {
+                    runOpenModel();
+                }
+                else {
+                    runClosedModel();
+                }
+
+                var elapsedNanos = System.nanoTime() - start;
+                report(elapsedNanos, gcBefore, gcStatistics(), standIn.getCalls());
+            }
+            finally {
+                support.after();
+            }
+        }
+        finally {
+            if (!options.isKeepFiles()) {
+                deleteRecursively(workDir);
+            }
+        }
+    }
+
+    private void generateBags(Path workDir) throws IOException {
+        bagDirs = new ArrayList<>();
+        zipFiles = new ArrayList<>();
+        var zipDir = Files.createDirectories(workDir.resolve("zips"));
+
+        for (int i = 0; i < options.getBags(); ++i) {
+            var name = String.format("bag-%04d", i);
+            var bagDir = SyntheticBagGenerator.builder()
+                .seed(i)
+                .files(options.getFiles())
+                .payloadSizes(PayloadSizes.logNormal(options.getFileSize(), 1.0, options.getFileSize() * 100))
+                .authors(options.getAuthors())
+                .polygons(options.getPolygons())
+                .build()
+                .generate(workDir.resolve("bags").resolve(name).resolve(name));
+
+            bagDirs.add(bagDir);
+            zipFiles.add(zip(bagDir, zipDir.resolve(name + ".zip")));
+        }
+    }
+
+    // every worker sends its next request as soon as the previous one is answered
+    private void runClosedModel() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(options.getConcurrency());
+        var next = new AtomicInteger();
+        var sampler = startHeapSampler();
+
+        try {
+            for (int w = 0; w < options.getConcurrency(); ++w) {
+                executor.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < options.getRequests()) {
+                        send(i, System.nanoTime());
+                    }
+                    return null;
+                });
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.DAYS);
+        }
+        finally {
+            sampler.shutdownNow();
+        }
+    }
+
+    // requests are started at a fixed rate, independent of the response times; latency is measured from the intended start, so that queueing is included
+    private void runOpenModel() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(options.getConcurrency());
+        var scheduler = Executors.newSingleThreadScheduledExecutor();
+        var sampler = startHeapSampler();
+        var done = new CountDownLatch(options.getRequests());
+        var next = new AtomicInteger();
+        var periodNanos = (long) (1_000_000_000L / options.getRate());
+        var start = System.nanoTime();
+
+        try {
+            scheduler.scheduleAtFixedRate(() -> {
+                var i = next.getAndIncrement();
+
+                if (i >= options.getRequests()) {
+                    return;
+                }
+
+                var intendedStart = start + i * periodNanos;
+                executor.submit(() -> {
+                    try {
+                        send(i, intendedStart);
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                });
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+            done.await();
+        }
+        finally {
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+            sampler.shutdownNow();
+        }
+    }
+
+    private void send(int i, long startNanos) {
+        var random = new Random(i);
+        var kind = random.nextDouble() < options.getZipRatio() ? Kind.ZIP : Kind.LOCAL_DIR;
+        var bag = i % options.getBags();
+
+        try {
+            var request = kind == Kind.ZIP
+                ? HttpRequest.newBuilder(baseUrl.resolve("validateZip"))
+                .header("Content-Type", "application/zip")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofFile(zipFiles.get(bag)))
+                .build()
+                : HttpRequest.newBuilder(baseUrl.resolve("validateLocalDir"))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(String.format("{\"bagLocation\": \"%s\", \"packageType\": \"DEPOSIT\"}",
+                    bagDirs.get(bag).toString().replace("\\", "\\\\"))))
+                .build();
+
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            var compliant = response.statusCode() == 200 && response.body().contains("\"isCompliant\":true");
+            samples.add(new Sample(kind, System.nanoTime() - startNanos, response.statusCode(), compliant));
+        }
+        catch (IOException e) {
+            samples.add(new Sample(kind, System.nanoTime() - startNanos, -1, false));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ScheduledExecutorService startHeapSampler() {
+        var sampler = Executors.newSingleThreadScheduledExecutor();
+        var memory = ManagementFactory.getMemoryMXBean();
+        sampler.scheduleAtFixedRate(() -> maxHeapUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 100, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    private void resetPeakHeapUsage() {
+        maxHeapUsed.set(0);
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+    }
+
+    private static Map<String, long[]> gcStatistics() {
+        var statistics = new HashMap<String, long[]>();
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            statistics.put(gc.getName(), new long[] { gc.getCollectionCount(), gc.getCollectionTime() });
+        }
+
+        return statistics;
+    }
+
+    private void report(long elapsedNanos, Map<String, long[]> gcBefore, Map<String, long[]> gcAfter, long remoteCalls) {
+        var all = new ArrayList<>(samples);
+        var seconds = elapsedNanos / 1e9;
+
+        out.println();
+        out.printf("Requests:        %d in %.2f s%n", all.size(), seconds);
+        out.printf("Throughput:      %.2f requests/s%n", all.size() / seconds);
+        out.printf("Failed requests: %d%n", all.stream().filter(s -> s.status() != 200).count());
+        out.printf("Not compliant:   %d%n", all.stream().filter(s -> s.status() == 200 && !s.compliant()).count());
+        out.printf("Remote calls:    %d%n", remoteCalls);
+        out.println();
+        out.printf("%-10s %8s %10s %10s %10s %10s %10s%n", "Latency", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        reportLatencies("all", all);
+        for (var kind : Kind.values()) {
+            reportLatencies(kind.name().toLowerCase(Locale.ROOT), all.stream().filter(s -> s.kind() == kind).collect(Collectors.toList()));
+        }
+
+        var peakHeap = heapPools().stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        out.println();
+        out.printf("Heap:            max %.1f MB, peak (per pool, summed) %.1f MB, sampled max used %.1f MB%n",
+            ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax() / 1e6, peakHeap / 1e6, maxHeapUsed.get() / 1e6);
+
+        for (var entry : gcAfter.entrySet()) {
+            var before = gcBefore.getOrDefault(entry.getKey(), new long[] { 0, 0 });
+            out.printf("GC %-20s %6d collections, %8d ms%n", entry.getKey() + ":", entry.getValue()[0] - before[0], entry.getValue()[1] - before[1]);
+        }
+    }
+
+    private void reportLatencies(String label, List<Sample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+
+        var latencies = samples.stream().mapToLong(Sample::latencyNanos).sorted().toArray();
+        var line = new StringBuilder(String.format("%-10s %8d", label, latencies.length));
+
+        for (var percentile : PERCENTILES) {
+            var index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            line.append(String.format(" %10.1f", latencies[Math.max(0, index)] / 1e6));
+        }
+
+        line.append(String.format(" %10.1f", latencies[latencies.length - 1] / 1e6));
+        out.println(line);
+    }
+
+    private static Path zip(Path bagDir, Path zipFile) throws IOException {
+        try (var output = new ZipOutputStream(Files.newOutputStream(zipFile)); Stream<Path> files = Files.walk(bagDir)) {
+            for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                // the bag is the top level directory in the ZIP
+                output.putNextEntry(new ZipEntry(bagDir.getParent().relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, output);
+                output.closeEntry();
+            }
+        }
+
+        return zipFile;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
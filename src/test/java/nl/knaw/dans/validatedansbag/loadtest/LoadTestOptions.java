@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.loadtest;
+
+import lombok.Data;
+
+import java.util.Locale;
+
+/**
+ * Command line options of the {@link LoadTest}, given as <code>--name=value</code>.
+ */
+@Data
+public class LoadTestOptions {
+    public enum Mode {
+        DATASTATION,
+        VAAS
+    }
+
+    private Mode mode = Mode.VAAS;
+    // number of requests in flight at the same time
+    private int concurrency = 4;
+    // requests per second; 0 means every worker sends its next request as soon as the previous one is answered
+    private double rate = 0;
+    private int requests = 200;
+    private int warmupRequests = 20;
+    // fraction of the requests that uploads a ZIP instead of pointing to a local directory
+    private double zipRatio = 0.5;
+    // number of distinct bags that the requests cycle through
+    private int bags = 10;
+    private int files = 100;
+    // median payload file size in bytes; the sizes are log-normally distributed
+    private long fileSize = 64 * 1024;
+    private int authors = 10;
+    private int polygons = 5;
+    // simulated round trip time of Dataverse or the vault catalog
+    private long remoteLatencyMillis = 20;
+    private boolean keepFiles = false;
+
+    public static LoadTestOptions parse(String[] args) {
+        var options = new LoadTestOptions();
+
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+            }
+
+            var name = arg.substring(2, arg.indexOf('='));
+            var value = arg.substring(arg.indexOf('=') + 1);
+
+            switch (name) {
+                case "mode" -> options.setMode(Mode.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "concurrency" -> options.setConcurrency(Integer.parseInt(value));
+                case "rate" -> options.setRate(Double.parseDouble(value));
+                case "requests" -> options.setRequests(Integer.parseInt(value));
+                case "warmup-requests" -> options.setWarmupRequests(Integer.parseInt(value));
+                case "zip-ratio" -> options.setZipRatio(Double.parseDouble(value));
+                case "bags" -> options.setBags(Integer.parseInt(value));
+                case "files" -> options.setFiles(Integer.parseInt(value));
+                case "file-size" -> options.setFileSize(Long.parseLong(value));
+                case "authors" -> options.setAuthors(Integer.parseInt(value));
+                case "polygons" -> options.setPolygons(Integer.parseInt(value));
+                case "remote-latency-millis" -> options.setRemoteLatencyMillis(Long.parseLong(value));
+                case "keep-files" -> options.setKeepFiles(Boolean.parseBoolean(value));
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        return options;
+    }
+}
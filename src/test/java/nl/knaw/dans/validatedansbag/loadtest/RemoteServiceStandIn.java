@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for Dataverse and the Vault Catalog. It answers the calls that the rule sets make with canned responses, so that the load on the service can
+ * be measured without a Data Station. An optional latency simulates the round trip to a real instance.
+ */
+public class RemoteServiceStandIn implements AutoCloseable {
+    private static final String VERSION = """
+        { "status": "OK", "data": { "version": "5.14", "build": "standin" } }""";
+    private static final String LICENSES = """
+        { "status": "OK", "data": [
+          { "id": 1, "name": "CC BY-SA 4.0", "uri": "http://creativecommons.org/licenses/by-sa/4.0", "active": true },
+          { "id": 2, "name": "CC0 1.0", "uri": "http://creativecommons.org/publicdomain/zero/1.0", "active": true }
+        ] }""";
+    private static final String MAX_EMBARGO = """
+        { "status": "OK", "data": { "message": "24" } }""";
+    private static final String EMPTY_SEARCH_RESULT = """
+        { "status": "OK", "data": { "q": "", "total_count": 0, "start": 0, "spelling_alternatives": {}, "items": [], "count_in_response": 0 } }""";
+    private static final String ROLE_ASSIGNMENTS = """
+        { "status": "OK", "data": [ { "id": 6, "assignee": "@user001", "roleId": 11, "_roleAlias": "datasetcreator", "definitionPointId": 2 } ] }""";
+    private static final String NOT_FOUND = """
+        { "status": "ERROR", "message": "Not found" }""";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long latencyMillis;
+    private final LongAdder calls = new LongAdder();
+
+    public RemoteServiceStandIn(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public URI getBaseUrl() {
+        return URI.create(String.format("http://localhost:%d/", server.getAddress().getPort()));
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.increment();
+
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        var path = exchange.getRequestURI().getPath();
+        var status = 200;
+        String body;
+
+        if (path.startsWith("/api/info/version")) {
+            body = VERSION;
+        }
+        else if (path.startsWith("/api/licenses")) {
+            body = LICENSES;
+        }
+        else if (path.startsWith("/api/admin/settings/")) {
+            body = MAX_EMBARGO;
+        }
+        else if (path.startsWith("/api/search")) {
+            body = EMPTY_SEARCH_RESULT;
+        }
+        else if (path.endsWith("/assignments")) {
+            body = ROLE_ASSIGNMENTS;
+        }
+        else {
+            // also what the vault catalog answers for an unknown SWORD token
+            status = 404;
+            body = NOT_FOUND;
+        }
+
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (var output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
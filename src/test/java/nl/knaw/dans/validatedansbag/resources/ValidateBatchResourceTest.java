@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
+import nl.knaw.dans.validatedansbag.core.BagNotFoundException;
+import nl.knaw.dans.validatedansbag.core.engine.ValidationContext;
+import nl.knaw.dans.validatedansbag.core.report.BatchValidateCommandDto;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
+import nl.knaw.dans.validatedansbag.core.service.RuleEngineService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+class ValidateBatchResourceTest {
+    private static final ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private static final RuleEngineService ruleEngineService = Mockito.mock(RuleEngineService.class);
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    public static final ResourceExtension EXT = ResourceExtension.builder()
+        .setMapper(objectMapper)
+        .addResource(new ValidateBatchResource(ruleEngineService, RevalidationCache.DISABLED, executor, 2, objectMapper))
+        .build();
+
+    @TempDir
+    Path tempDir;
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Mockito.reset(ruleEngineService);
+        Mockito.when(ruleEngineService.validateBag(any(), any(), any(ValidationContext.class))).thenAnswer(invocation -> {
+            var result = new ValidateOkDto();
+            result.setBagLocation(invocation.getArgument(1));
+            result.setIsCompliant(true);
+            return result;
+        });
+    }
+
+    private List<String> post(BatchValidateCommandDto command) {
+        try (var response = EXT.target("/validateBatch").request().post(Entity.entity(command, MediaType.APPLICATION_JSON_TYPE))) {
+            assertThat(response.getStatus()).isEqualTo(200);
+            return response.readEntity(String.class).lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void validateBatch_should_stream_one_line_per_bag() throws Exception {
+        var command = new BatchValidateCommandDto();
+        command.setBagLocations(List.of("bag-1", "bag-2", "bag-3"));
+
+        var lines = post(command);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.stream().map(ValidateBatchResourceTest::readBagLocation))
+            .containsExactlyInAnyOrder("bag-1", "bag-2", "bag-3");
+    }
+
+    @Test
+    void validateBatch_should_validate_every_directory_under_parent() throws Exception {
+        Files.createDirectories(tempDir.resolve("a"));
+        Files.createDirectories(tempDir.resolve("b"));
+        Files.writeString(tempDir.resolve("not-a-bag.txt"), "");
+        var command = new BatchValidateCommandDto();
+        command.setParentDirectory(tempDir.toString());
+
+        var lines = post(command);
+
+        assertThat(lines.stream().map(ValidateBatchResourceTest::readBagLocation))
+            .containsExactlyInAnyOrder(tempDir.resolve("a").toString(), tempDir.resolve("b").toString());
+    }
+
+    @Test
+    void validateBatch_should_report_error_line_for_missing_bag() throws Exception {
+        Mockito.when(ruleEngineService.validateBag(any(), eq("missing"), any(ValidationContext.class)))
+            .thenThrow(new BagNotFoundException("Bag on path 'missing' could not be found or read"));
+        var command = new BatchValidateCommandDto();
+        command.setBagLocations(List.of("missing", "bag-1"));
+
+        var lines = post(command);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines).anySatisfy(l -> assertThat(objectMapper.readTree(l).get("error").asText()).contains("could not be found"));
+    }
+
+    @Test
+    void validateBatch_should_return_400_without_bags() {
+        try (var response = EXT.target("/validateBatch").request().post(Entity.entity(new BatchValidateCommandDto(), MediaType.APPLICATION_JSON_TYPE))) {
+            assertThat(response.getStatus()).isEqualTo(400);
+        }
+    }
+
+    private static String readBagLocation(String line) {
+        try {
+            return objectMapper.readTree(line).get("bagLocation").asText();
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package nl.knaw.dans.validatedansbag.resources;
 
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import io.dropwizard.testing.junit5.ResourceExtension;
 import nl.knaw.dans.lib.dataverse.DataverseException;
@@ -22,17 +23,19 @@ import nl.knaw.dans.lib.dataverse.model.DataMessage;
 import nl.knaw.dans.lib.dataverse.model.RoleAssignmentReadOnly;
 import nl.knaw.dans.lib.dataverse.model.dataset.DatasetLatestVersion;
 import nl.knaw.dans.lib.dataverse.model.search.SearchResult;
-import nl.knaw.dans.lib.util.XmlSchemaValidator;
 import nl.knaw.dans.lib.util.ruleengine.RuleEngineImpl;
 import nl.knaw.dans.validatedansbag.api.ValidateCommandDto;
 import nl.knaw.dans.validatedansbag.api.ValidateOkDto;
 import nl.knaw.dans.validatedansbag.api.ValidateOkRuleViolationsInnerDto;
+import nl.knaw.dans.validatedansbag.core.report.ValidationEventDto;
 import nl.knaw.dans.validatedansbag.core.rules.RuleSets;
 import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReaderImpl;
+import nl.knaw.dans.validatedansbag.core.service.ChecksumVerifier;
 import nl.knaw.dans.validatedansbag.core.service.DataverseService;
 import nl.knaw.dans.validatedansbag.core.service.FileServiceImpl;
 import nl.knaw.dans.validatedansbag.core.service.FilesXmlServiceImpl;
 import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.RevalidationCache;
 import nl.knaw.dans.validatedansbag.core.service.RuleEngineServiceImpl;
 import nl.knaw.dans.validatedansbag.core.service.VaultCatalogClient;
 import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
@@ -42,6 +45,7 @@ import nl.knaw.dans.validatedansbag.core.validator.OrganizationIdentifierPrefixV
 import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidatorImpl;
 import nl.knaw.dans.validatedansbag.resources.util.MockedDataverseResponse;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -51,13 +55,14 @@ import org.xml.sax.SAXException;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import javax.xml.transform.Source;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -70,7 +75,9 @@ class ValidateLocalDirApiResourceIntegrationTest {
     public static final ResourceExtension EXT;
 
     private static final DataverseService dataverseService = Mockito.mock(DataverseService.class);
-    private static final XmlSchemaValidator xmlSchemaValidator = Mockito.mock(XmlSchemaValidator.class);
+    // the XML schemas are not available offline, so the tests decide whether dataset.xml and files.xml conform to them
+    private static final XmlReaderImpl xmlReader = Mockito.spy(new XmlReaderImpl());
+    private static final ExecutorService checksumExecutor = Executors.newFixedThreadPool(2);
     private static final String baseTestFolder = Objects.requireNonNull(Objects.requireNonNull(ValidateLocalDirApiResourceIntegrationTest.class.getClassLoader().getResource("")).getPath());
 
     private static final LicenseValidator licenseValidator = new LicenseValidator() {
@@ -95,8 +102,7 @@ class ValidateLocalDirApiResourceIntegrationTest {
 
     static ValidateLocalDirApiResource buildValidateResource() {
         var fileService = new FileServiceImpl(Path.of(baseTestFolder));
-        var bagItMetadataReader = new BagItMetadataReaderImpl();
-        var xmlReader = new XmlReaderImpl();
+        var bagItMetadataReader = new BagItMetadataReaderImpl(new ChecksumVerifier(checksumExecutor));
         var polygonListValidator = new PolygonListValidatorImpl();
         var originalFilepathsService = new OriginalFilepathsServiceImpl(fileService);
         var filesXmlService = new FilesXmlServiceImpl(xmlReader);
@@ -111,17 +117,23 @@ class ValidateLocalDirApiResourceIntegrationTest {
         var ruleEngine = new RuleEngineImpl();
         var ruleSets = new RuleSets(
             dataverseService, fileService, filesXmlService, originalFilepathsService, xmlReader,
-            bagItMetadataReader,  xmlSchemaValidator, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
+            bagItMetadataReader, licenseValidator, identifierValidator, polygonListValidator, organizationIdentifierPrefixValidator,
             vaultService, Map.of(), Map.of());
 
         var ruleEngineService = new RuleEngineServiceImpl(ruleEngine, fileService, ruleSets.getDataStationSet());
-        return new ValidateLocalDirApiResource(ruleEngineService);
+        return new ValidateLocalDirApiResource(ruleEngineService, RevalidationCache.DISABLED, Jackson.newObjectMapper());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        checksumExecutor.shutdownNow();
     }
 
     @BeforeEach
-    void setup() {
+    void setup() throws Exception {
         Mockito.reset(dataverseService);
-        Mockito.reset(xmlSchemaValidator);
+        Mockito.reset(xmlReader);
+        Mockito.doReturn(List.of()).when(xmlReader).validateXmlFile(Mockito.any(), Mockito.anyString());
     }
 
     @Test
@@ -163,8 +175,8 @@ class ValidateLocalDirApiResourceIntegrationTest {
         data.setBagLocation(filename);
         data.setPackageType(ValidateCommandDto.PackageTypeEnum.DEPOSIT);
 
-        Mockito.when(xmlSchemaValidator.validateDocument(Mockito.any(Source.class), Mockito.anyString()))
-            .thenThrow(new SAXException("Something is broken"));
+        Mockito.doThrow(new SAXException("Something is broken"))
+            .when(xmlReader).validateXmlFile(Mockito.any(), Mockito.anyString());
 
         try (var response = EXT.target("/validateLocalDir")
             .register(MultiPartFeature.class)
@@ -177,6 +189,45 @@ class ValidateLocalDirApiResourceIntegrationTest {
         }
     }
 
+    @Test
+    void validateFormData_should_stream_rule_results_and_progress_when_requested() throws Exception {
+        var filename = baseTestFolder + "/bags/valid-bag";
+
+        var data = new ValidateCommandDto();
+        data.setBagLocation(filename);
+        data.setPackageType(ValidateCommandDto.PackageTypeEnum.DEPOSIT);
+
+        Mockito.doThrow(new SAXException("Something is broken"))
+            .when(xmlReader).validateXmlFile(Mockito.any(), Mockito.anyString());
+
+        try (var response = EXT.target("/validateLocalDir")
+            .queryParam("stream", "true")
+            .request()
+            .post(Entity.entity(data, MediaType.APPLICATION_JSON_TYPE), Response.class)) {
+
+            assertEquals(200, response.getStatus());
+            var events = response.readEntity(String.class).lines()
+                .map(ValidateLocalDirApiResourceIntegrationTest::readEvent)
+                .collect(Collectors.toList());
+
+            assertThat(events.stream().anyMatch(e -> "rule".equals(e.getEvent()) && "1.1.1".equals(e.getRule()) && "SUCCESS".equals(e.getStatus()))).isTrue();
+            assertThat(events.stream().anyMatch(e -> "checksumProgress".equals(e.getEvent()) && e.getBytesRemaining() == 0)).isTrue();
+
+            var last = events.get(events.size() - 1);
+            assertEquals("result", last.getEvent());
+            assertFalse(last.getResult().getIsCompliant());
+        }
+    }
+
+    private static ValidationEventDto readEvent(String line) {
+        try {
+            return Jackson.newObjectMapper().readValue(line, ValidationEventDto.class);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Test
     void validateFormData_should_validate_ok_with_valid_bag_and_original_filepaths() throws Exception {
         var filename = baseTestFolder + "/bags/datastation-valid-bag";
@@ -346,7 +397,7 @@ class ValidateLocalDirApiResourceIntegrationTest {
         assertThat(response.getRuleViolations().size()).isEqualTo(1);
         assertThat(response.getRuleViolations().get(0).getRule()).isEqualTo("1.1.1");
         assertThat(response.getRuleViolations().get(0).getViolation())
-            .endsWith("original-metadata.zip] is in the payload directory but isn't listed in any manifest!");
+            .isEqualTo("Bag is not valid: 1 file(s) present in the payload directory but not listed in manifest-sha1.txt: data/original-metadata.zip");
     }
 
     @Test
@@ -744,4 +795,38 @@ class ValidateLocalDirApiResourceIntegrationTest {
         assertFalse(response.getIsCompliant());
         assertEquals("bag-with-is-version-of", response.getName());
     }
+
+    @Test
+    void validateFormData_should_include_timings_only_when_requested() throws Exception {
+        var filename = baseTestFolder + "/bags/audiences-invalid";
+
+        var data = new ValidateCommandDto();
+        data.setBagLocation(filename);
+        data.setPackageType(ValidateCommandDto.PackageTypeEnum.DEPOSIT);
+
+        var embargoResultJson = """
+            {
+              "status": "OK",
+              "data": {
+                "message": "24"
+              }
+            }""";
+        var maxEmbargoDurationResult = new MockedDataverseResponse<DataMessage>(embargoResultJson, DataMessage.class);
+        Mockito.when(dataverseService.getMaxEmbargoDurationInMonths())
+            .thenReturn(maxEmbargoDurationResult);
+
+        var withTimings = EXT.target("/validateLocalDir")
+            .queryParam("timings", "true")
+            .request()
+            .post(Entity.entity(data, MediaType.APPLICATION_JSON_TYPE), String.class);
+
+        assertThat(withTimings).contains("\"timings\"");
+        assertThat(withTimings).contains("\"rule\":\"1.1.1\"");
+
+        var withoutTimings = EXT.target("/validateLocalDir")
+            .request()
+            .post(Entity.entity(data, MediaType.APPLICATION_JSON_TYPE), String.class);
+
+        assertThat(withoutTimings).doesNotContain("\"timings\"");
+    }
 }
@@ -0,0 +1,448 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources.util;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates bags that comply with the DANS BagIt profile, for load and scale testing. The generated bags have the same shape as the bags in
+ * src/test/resources/bags, but the number of files, the directory structure, the payload sizes and the size of dataset.xml are configurable. Each {@link Fault}
+ * plants a violation of one rule. Generation is deterministic for a given seed.
+ *
+ * <pre>
+ * var bagDir = SyntheticBagGenerator.builder()
+ *     .files(10_000)
+ *     .payloadSizes(PayloadSizes.logNormal(64 * 1024, 1.5, 100 * 1024 * 1024))
+ *     .authors(50)
+ *     .faults(Set.of(Fault.INVALID_DAI))
+ *     .build()
+ *     .generate(tempDir.resolve("bag"));
+ * </pre>
+ */
+@Builder
+@Getter
+public class SyntheticBagGenerator {
+    private static final String[] DAIS = { "123456789", "124398545", "943582342" };
+    private static final String[] ORCIDS = { "https://orcid.org/0000-0002-1825-0097", "https://orcid.org/0000-0002-1694-233X" };
+    private static final String[] ISNIS = { "http://www.isni.org/isni/0000000114559647", "0000 0001 2281 955X" };
+    private static final String POS_LIST = "52.08 4.31 52.09 4.31 52.09 4.32 52.08 4.32 52.08 4.31";
+    private static final String SRS_NAME_WGS84 = "http://www.opengis.net/def/crs/EPSG/0/4326";
+    private static final String SRS_NAME_RD = "urn:ogc:def:crs:EPSG::28992";
+
+    @Builder.Default
+    private final long seed = 42;
+    @Builder.Default
+    private final int files = 5;
+    // number of directory levels below data/
+    @Builder.Default
+    private final int directoryDepth = 2;
+    // number of subdirectories per directory
+    @Builder.Default
+    private final int directoryFanOut = 4;
+    @Builder.Default
+    private final PayloadSizes payloadSizes = PayloadSizes.fixed(1024);
+    @Builder.Default
+    private final int subjects = 1;
+    @Builder.Default
+    private final int authors = 1;
+    @Builder.Default
+    private final int polygons = 0;
+    // rename all payload files and record the original paths in original-filepaths.txt
+    @Builder.Default
+    private final boolean originalFilepaths = false;
+    @Builder.Default
+    private final Set<Fault> faults = Set.of();
+
+    /**
+     * The faults that can be planted in a generated bag, with the number of the rule that reports it. Other rules that depend on the same data may report the
+     * fault as well. Faults for the rules that depend on Dataverse (4.x) are not included, because whether they trigger depends on the responses of the
+     * (mocked) Data Station.
+     */
+    @Getter
+    public enum Fault {
+        CORRUPT_PAYLOAD_CHECKSUM("1.1.1"),
+        PAYLOAD_FILE_NOT_IN_MANIFEST("1.1.1"),
+        DUPLICATE_IS_VERSION_OF("1.2.3(a)"),
+        INVALID_IS_VERSION_OF("1.2.3(b)"),
+        ONLY_MD5_MANIFEST("1.3.1"),
+        MISSING_FILES_XML("2.2(b)"),
+        UNEXPECTED_METADATA_FILE("2.3"),
+        NO_LICENSE("3.1.2"),
+        INVALID_DAI("3.1.3(a)"),
+        INVALID_ISNI("3.1.3(b)"),
+        INVALID_ORCID("3.1.3(c)"),
+        UNCLOSED_POLYGON("3.1.4"),
+        MIXED_SRS_NAMES_IN_MULTI_SURFACE("3.1.5"),
+        POINT_WITH_ONE_COORDINATE("3.1.6"),
+        LONG_ARCHIS_IDENTIFIER("3.1.7"),
+        INVALID_URL("3.1.8"),
+        NO_RIGHTS_HOLDER("3.1.9"),
+        RIGHTS_HOLDER_IN_AUTHOR_ROLE("3.1.10"),
+        FILES_XML_DESCRIBES_MISSING_FILE("3.2.2"),
+        PAYLOAD_FILE_NOT_IN_FILES_XML("3.2.3"),
+        ORIGINAL_FILEPATHS_NOT_UTF8("3.3.1"),
+        ORIGINAL_FILEPATHS_INCOMPLETE("3.3.2"),
+        MULTIPLE_DOIS("5.2(a)"),
+        INVALID_DOI("5.2(b)");
+
+        private final String rule;
+
+        Fault(String rule) {
+            this.rule = rule;
+        }
+    }
+
+    /**
+     * The distribution of payload file sizes.
+     */
+    @FunctionalInterface
+    public interface PayloadSizes {
+        long next(Random random);
+
+        static PayloadSizes fixed(long size) {
+            return random -> size;
+        }
+
+        static PayloadSizes uniform(long min, long max) {
+            return random -> min + (long) (random.nextDouble() * (max - min + 1));
+        }
+
+        // a few large files and many small ones, like most real deposits
+        static PayloadSizes logNormal(long median, double sigma, long max) {
+            return random -> Math.min(max, Math.round(median * Math.exp(sigma * random.nextGaussian())));
+        }
+    }
+
+    public Path generate(Path bagDir) throws IOException {
+        var random = new Random(seed);
+        var withOriginalFilepaths = originalFilepaths || has(Fault.ORIGINAL_FILEPATHS_NOT_UTF8) || has(Fault.ORIGINAL_FILEPATHS_INCOMPLETE);
+        var algorithm = has(Fault.ONLY_MD5_MANIFEST) ? "md5" : "sha1";
+
+        Files.createDirectories(bagDir.resolve("data"));
+        Files.createDirectories(bagDir.resolve("metadata"));
+
+        // original path (as described in files.xml) -> path in the bag
+        var payload = new LinkedHashMap<String, String>();
+        var manifest = new StringBuilder();
+        var payloadBytes = 0L;
+
+        for (int i = 0; i < files; ++i) {
+            var originalPath = originalPath(i);
+            var bagPath = withOriginalFilepaths ? String.format("data/%08x-%d", random.nextInt(), i) : originalPath;
+            var size = Math.max(0, payloadSizes.next(random));
+            var checksum = writeRandomFile(bagDir.resolve(bagPath), size, random, algorithm);
+
+            if (i == 0 && has(Fault.CORRUPT_PAYLOAD_CHECKSUM)) {
+                checksum = new StringBuilder(checksum).reverse().toString();
+            }
+
+            payload.put(originalPath, bagPath);
+            manifest.append(checksum).append("  ").append(bagPath).append('\n');
+            payloadBytes += size;
+        }
+
+        if (has(Fault.PAYLOAD_FILE_NOT_IN_MANIFEST)) {
+            var unlisted = "data/not-in-manifest.txt";
+            Files.writeString(bagDir.resolve(unlisted), "This file is not listed in the manifest\n");
+            payload.put(unlisted, unlisted);
+            payloadBytes += Files.size(bagDir.resolve(unlisted));
+        }
+
+        var payloadFiles = payload.size();
+        var tagFiles = new ArrayList<String>();
+
+        write(bagDir, "bagit.txt", "BagIt-Version: 0.97\nTag-File-Character-Encoding: UTF-8\n", tagFiles);
+        write(bagDir, "bag-info.txt", bagInfo(payloadBytes, payloadFiles), tagFiles);
+        write(bagDir, "manifest-" + algorithm + ".txt", manifest.toString(), tagFiles);
+        write(bagDir, "metadata/dataset.xml", datasetXml(), tagFiles);
+
+        if (!has(Fault.MISSING_FILES_XML)) {
+            write(bagDir, "metadata/files.xml", filesXml(payload), tagFiles);
+        }
+
+        if (has(Fault.UNEXPECTED_METADATA_FILE)) {
+            write(bagDir, "metadata/notes.txt", "Not allowed in the metadata directory\n", tagFiles);
+        }
+
+        if (withOriginalFilepaths) {
+            writeOriginalFilepaths(bagDir, payload, tagFiles);
+        }
+
+        var tagManifest = new StringBuilder();
+
+        for (var tagFile : tagFiles) {
+            tagManifest.append(checksum(Files.readAllBytes(bagDir.resolve(tagFile)), algorithm)).append("  ").append(tagFile).append('\n');
+        }
+
+        Files.writeString(bagDir.resolve("tagmanifest-" + algorithm + ".txt"), tagManifest);
+        return bagDir;
+    }
+
+    private boolean has(Fault fault) {
+        return faults.contains(fault);
+    }
+
+    private String originalPath(int i) {
+        var path = new StringBuilder("data/");
+        var index = i;
+
+        for (int level = 0; level < directoryDepth; ++level) {
+            path.append("dir-").append(index % directoryFanOut).append('/');
+            index /= directoryFanOut;
+        }
+
+        return path.append(String.format("file %06d.bin", i)).toString();
+    }
+
+    private String bagInfo(long payloadBytes, int payloadFiles) {
+        var bagInfo = new StringBuilder()
+            .append("Payload-Oxum: ").append(payloadBytes).append('.').append(payloadFiles).append('\n')
+            .append("Bagging-Date: 2023-01-01\n")
+            .append("Created: 2023-01-01T00:00:00.000+01:00\n")
+            .append("Data-Station-User-Account: user001\n");
+
+        if (has(Fault.DUPLICATE_IS_VERSION_OF)) {
+            bagInfo.append("Is-Version-Of: urn:uuid:2cd3745a-8b42-44a7-b1ca-5c93aa6f4e32\n");
+            bagInfo.append("Is-Version-Of: urn:uuid:8f2ab8a1-7c4f-4b0f-a27e-1f7d2a9d9e6b\n");
+        }
+
+        if (has(Fault.INVALID_IS_VERSION_OF)) {
+            bagInfo.append("Is-Version-Of: urn:uuid:not-a-uuid\n");
+        }
+
+        return bagInfo.toString();
+    }
+
+    private String datasetXml() {
+        var xml = new StringBuilder("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <ddm:DDM xmlns:ddm="http://schemas.dans.knaw.nl/dataset/ddm-v2/"
+                     xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+                     xmlns:dc="http://purl.org/dc/elements/1.1/"
+                     xmlns:dct="http://purl.org/dc/terms/"
+                     xmlns:gml="http://www.opengis.net/gml"
+                     xmlns:dcx-gml="http://easy.dans.knaw.nl/schemas/dcx/gml/"
+                     xmlns:dcx-dai="http://easy.dans.knaw.nl/schemas/dcx/dai/"
+                     xmlns:id-type="http://easy.dans.knaw.nl/schemas/vocab/identifier-type/">
+                <ddm:profile>
+                    <dc:title xml:lang="en">Title of the dataset</dc:title>
+                    <dc:description xml:lang="la">Lorem ipsum dolor sit amet, consectetur adipiscing elit.</dc:description>
+                    <dcx-dai:creatorDetails>
+            """);
+
+        for (int i = 0; i < Math.max(1, authors); ++i) {
+            var first = i == 0;
+            var role = first && has(Fault.RIGHTS_HOLDER_IN_AUTHOR_ROLE) ? "RightsHolder" : "Distributor";
+
+            xml.append("            <dcx-dai:author>\n")
+                .append("                <dcx-dai:initials>D.N.</dcx-dai:initials>\n")
+                .append("                <dcx-dai:surname>Aarden ").append(i).append("</dcx-dai:surname>\n")
+                .append("                <dcx-dai:DAI>").append(first && has(Fault.INVALID_DAI) ? "123456788" : DAIS[i % DAIS.length]).append("</dcx-dai:DAI>\n")
+                .append("                <dcx-dai:ISNI>").append(first && has(Fault.INVALID_ISNI) ? "0000000114559646" : ISNIS[i % ISNIS.length]).append("</dcx-dai:ISNI>\n")
+                .append("                <dcx-dai:ORCID>").append(first && has(Fault.INVALID_ORCID) ? "https://orcid.org/0000-0002-1825-0098" : ORCIDS[i % ORCIDS.length])
+                .append("</dcx-dai:ORCID>\n")
+                .append("                <dcx-dai:role>").append(role).append("</dcx-dai:role>\n")
+                .append("                <dcx-dai:organization>\n")
+                .append("                    <dcx-dai:name xml:lang=\"en\">Utrecht University</dcx-dai:name>\n")
+                .append("                </dcx-dai:organization>\n")
+                .append("            </dcx-dai:author>\n");
+        }
+
+        xml.append("""
+                    </dcx-dai:creatorDetails>
+                    <ddm:created>2012-12</ddm:created>
+                    <ddm:available>2013-05</ddm:available>
+                    <ddm:audience>D20000</ddm:audience>
+                    <ddm:accessRights>OPEN_ACCESS_FOR_REGISTERED_USERS</ddm:accessRights>
+                </ddm:profile>
+                <ddm:dcmiMetadata>
+            """);
+
+        if (!has(Fault.NO_LICENSE)) {
+            xml.append("        <dct:license xsi:type=\"dct:URI\">http://creativecommons.org/licenses/by-sa/4.0</dct:license>\n");
+        }
+
+        if (!has(Fault.NO_RIGHTS_HOLDER)) {
+            xml.append("        <dct:rightsHolder>Mr. Rights</dct:rightsHolder>\n");
+        }
+
+        for (int i = 0; i < subjects; ++i) {
+            xml.append("        <dc:subject>Subject ").append(i).append("</dc:subject>\n");
+        }
+
+        for (int i = 0; i < polygons; ++i) {
+            var posList = i == 0 && has(Fault.UNCLOSED_POLYGON) ? POS_LIST + " 52.10 4.33" : POS_LIST;
+            xml.append("        <dcx-gml:spatial>\n")
+                .append("            <gml:Polygon srsName=\"").append(SRS_NAME_WGS84).append("\">\n")
+                .append("                <gml:exterior><gml:LinearRing><gml:posList>").append(posList).append("</gml:posList></gml:LinearRing></gml:exterior>\n")
+                .append("            </gml:Polygon>\n")
+                .append("        </dcx-gml:spatial>\n");
+        }
+
+        if (has(Fault.UNCLOSED_POLYGON) && polygons == 0) {
+            xml.append("        <dcx-gml:spatial>\n")
+                .append("            <gml:Polygon srsName=\"").append(SRS_NAME_WGS84).append("\">\n")
+                .append("                <gml:exterior><gml:LinearRing><gml:posList>").append(POS_LIST).append(" 52.10 4.33</gml:posList></gml:LinearRing></gml:exterior>\n")
+                .append("            </gml:Polygon>\n")
+                .append("        </dcx-gml:spatial>\n");
+        }
+
+        if (has(Fault.MIXED_SRS_NAMES_IN_MULTI_SURFACE)) {
+            xml.append("        <dcx-gml:spatial>\n")
+                .append("            <gml:MultiSurface>\n");
+
+            for (var srsName : List.of(SRS_NAME_WGS84, SRS_NAME_RD)) {
+                xml.append("                <gml:surfaceMember><gml:Polygon srsName=\"").append(srsName).append("\">")
+                    .append("<gml:exterior><gml:LinearRing><gml:posList>").append(POS_LIST).append("</gml:posList></gml:LinearRing></gml:exterior>")
+                    .append("</gml:Polygon></gml:surfaceMember>\n");
+            }
+
+            xml.append("            </gml:MultiSurface>\n")
+                .append("        </dcx-gml:spatial>\n");
+        }
+
+        if (has(Fault.POINT_WITH_ONE_COORDINATE)) {
+            xml.append("        <dcx-gml:spatial><gml:Point><gml:pos>52.08</gml:pos></gml:Point></dcx-gml:spatial>\n");
+        }
+
+        if (has(Fault.LONG_ARCHIS_IDENTIFIER)) {
+            xml.append("        <dct:identifier xsi:type=\"id-type:ARCHIS-ZAAK-IDENTIFICATIE\">12345678901</dct:identifier>\n");
+        }
+
+        if (has(Fault.INVALID_URL)) {
+            xml.append("        <dct:relation xsi:type=\"URI\">ftp://example.org/relation</dct:relation>\n");
+        }
+
+        if (has(Fault.MULTIPLE_DOIS)) {
+            xml.append("        <dct:identifier xsi:type=\"id-type:DOI\">10.17026/dans-z52-ybfe</dct:identifier>\n")
+                .append("        <dct:identifier xsi:type=\"id-type:DOI\">10.17026/dans-2xg-umq8</dct:identifier>\n");
+        }
+
+        if (has(Fault.INVALID_DOI)) {
+            xml.append("        <dct:identifier xsi:type=\"id-type:DOI\">doi:not-a-doi</dct:identifier>\n");
+        }
+
+        return xml.append("""
+                </ddm:dcmiMetadata>
+            </ddm:DDM>
+            """).toString();
+    }
+
+    private String filesXml(Map<String, String> payload) {
+        var xml = new StringBuilder("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <files xmlns="http://easy.dans.knaw.nl/schemas/bag/metadata/files/" xmlns:dcterms="http://purl.org/dc/terms/">
+            """);
+        var describedPaths = new ArrayList<>(payload.keySet());
+
+        if (has(Fault.PAYLOAD_FILE_NOT_IN_FILES_XML) && !describedPaths.isEmpty()) {
+            describedPaths.remove(0);
+        }
+
+        if (has(Fault.FILES_XML_DESCRIBES_MISSING_FILE)) {
+            describedPaths.add("data/does-not-exist.bin");
+        }
+
+        for (var path : describedPaths) {
+            xml.append("    <file filepath=\"").append(path).append("\">\n")
+                .append("        <dcterms:format>application/octet-stream</dcterms:format>\n")
+                .append("    </file>\n");
+        }
+
+        return xml.append("</files>\n").toString();
+    }
+
+    private void writeOriginalFilepaths(Path bagDir, Map<String, String> payload, List<String> tagFiles) throws IOException {
+        var lines = new StringBuilder();
+        var entries = new ArrayList<>(payload.entrySet());
+
+        if (has(Fault.ORIGINAL_FILEPATHS_INCOMPLETE) && !entries.isEmpty()) {
+            entries.remove(entries.size() - 1);
+        }
+
+        for (var entry : entries) {
+            lines.append(entry.getValue()).append(' ').append(entry.getKey()).append('\n');
+        }
+
+        var bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (has(Fault.ORIGINAL_FILEPATHS_NOT_UTF8)) {
+            // a line on its own, so that the mapping itself stays intact
+            var invalid = new byte[] { (byte) 0xc3, (byte) 0x28, '\n' };
+            var withInvalid = new byte[bytes.length + invalid.length];
+            System.arraycopy(bytes, 0, withInvalid, 0, bytes.length);
+            System.arraycopy(invalid, 0, withInvalid, bytes.length, invalid.length);
+            bytes = withInvalid;
+        }
+
+        Files.write(bagDir.resolve("original-filepaths.txt"), bytes);
+        tagFiles.add("original-filepaths.txt");
+    }
+
+    private static void write(Path bagDir, String name, String content, List<String> tagFiles) throws IOException {
+        Files.writeString(bagDir.resolve(name), content);
+        tagFiles.add(name);
+    }
+
+    private static String writeRandomFile(Path file, long size, Random random, String algorithm) throws IOException {
+        Files.createDirectories(file.getParent());
+        var digest = messageDigest(algorithm);
+        var buffer = new byte[(int) Math.min(size, 64 * 1024)];
+
+        try (OutputStream output = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            var remaining = size;
+
+            while (remaining > 0) {
+                var chunk = (int) Math.min(remaining, buffer.length);
+                random.nextBytes(buffer);
+                output.write(buffer, 0, chunk);
+                remaining -= chunk;
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String checksum(byte[] content, String algorithm) {
+        return HexFormat.of().formatHex(messageDigest(algorithm).digest(content));
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm.equals("sha1") ? "SHA-1" : "MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2022 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.validatedansbag.resources.util;
+
+import nl.knaw.dans.lib.util.ruleengine.RuleEngineImpl;
+import nl.knaw.dans.lib.util.ruleengine.RuleValidationResult;
+import nl.knaw.dans.validatedansbag.core.rules.RuleSets;
+import nl.knaw.dans.validatedansbag.core.service.BagItMetadataReaderImpl;
+import nl.knaw.dans.validatedansbag.core.service.ChecksumVerifier;
+import nl.knaw.dans.validatedansbag.core.service.FileServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.FilesXmlServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.OriginalFilepathsServiceImpl;
+import nl.knaw.dans.validatedansbag.core.service.VaultCatalogClient;
+import nl.knaw.dans.validatedansbag.core.service.XmlReaderImpl;
+import nl.knaw.dans.validatedansbag.core.validator.IdentifierValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.LicenseValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.OrganizationIdentifierPrefixValidatorImpl;
+import nl.knaw.dans.validatedansbag.core.validator.PolygonListValidatorImpl;
+import nl.knaw.dans.validatedansbag.resources.util.SyntheticBagGenerator.Fault;
+import nl.knaw.dans.validatedansbag.resources.util.SyntheticBagGenerator.PayloadSizes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SyntheticBagGeneratorTest {
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // the VaaS rule set, because the Data Station rules need a Dataverse instance
+    private List<RuleValidationResult> validate(Path bagDir) throws Exception {
+        var fileService = new FileServiceImpl(tempDir);
+        // the XML schemas are not available offline, so dataset.xml and files.xml are taken to conform to them
+        var xmlReader = Mockito.spy(new XmlReaderImpl());
+        Mockito.doReturn(List.of()).when(xmlReader).validateXmlFile(Mockito.any(), Mockito.anyString());
+        var ruleSets = new RuleSets(
+            null, fileService, new FilesXmlServiceImpl(xmlReader), new OriginalFilepathsServiceImpl(fileService), xmlReader,
+            new BagItMetadataReaderImpl(new ChecksumVerifier(executor)), new LicenseValidatorImpl(null), new IdentifierValidatorImpl(),
+            new PolygonListValidatorImpl(), new OrganizationIdentifierPrefixValidatorImpl(List.of()), Mockito.mock(VaultCatalogClient.class), Map.of(), Map.of());
+
+        return new RuleEngineImpl().validateBag(bagDir, ruleSets.getVaasSet());
+    }
+
+    private Set<String> failedRules(List<RuleValidationResult> results) {
+        return results.stream()
+            .filter(r -> r.getStatus().equals(RuleValidationResult.RuleValidationResultStatus.FAILURE))
+            .map(RuleValidationResult::getNumber)
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    void generate_should_create_compliant_bag_with_defaults() throws Exception {
+        var bagDir = SyntheticBagGenerator.builder().build().generate(tempDir.resolve("bag"));
+
+        assertThat(failedRules(validate(bagDir))).isEmpty();
+    }
+
+    @Test
+    void generate_should_create_compliant_bag_with_renamed_files_and_large_metadata() throws Exception {
+        var bagDir = SyntheticBagGenerator.builder()
+            .files(200)
+            .directoryDepth(4)
+            .directoryFanOut(3)
+            .payloadSizes(PayloadSizes.logNormal(1024, 1.5, 256 * 1024))
+            .subjects(100)
+            .authors(50)
+            .polygons(20)
+            .originalFilepaths(true)
+            .build()
+            .generate(tempDir.resolve("bag"));
+
+        assertThat(failedRules(validate(bagDir))).isEmpty();
+        assertThat(bagDir.resolve("original-filepaths.txt")).exists();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> generate_should_plant_fault_that_violates_its_rule() {
+        return Arrays.stream(Fault.values()).map(fault -> DynamicTest.dynamicTest(fault.name(), () -> {
+            var bagDir = SyntheticBagGenerator.builder()
+                .faults(Set.of(fault))
+                .build()
+                .generate(tempDir.resolve(fault.name()));
+
+            assertThat(failedRules(validate(bagDir))).contains(fault.getRule());
+        }));
+    }
+}